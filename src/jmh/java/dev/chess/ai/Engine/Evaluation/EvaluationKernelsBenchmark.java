@@ -0,0 +1,81 @@
+package dev.chess.ai.Engine.Evaluation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar vs vector kernels on evaluation sized inputs
+ *
+ * ./gradlew jmh
+ *
+ * 16 -> mobility / king zone style terms, 512 -> network hidden layer input, 768 -> 12 x 64 piece features
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class EvaluationKernelsBenchmark {
+
+    @Param({"16", "512", "768"})
+    private int size;
+
+    private final EvaluationKernels scalar = new ScalarEvaluationKernels();
+    private final EvaluationKernels vector = new VectorEvaluationKernels();
+
+    private int[] features;
+    private int[] weights;
+    private short[] accumulator;
+    private short[] accumulatorWeights;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        features = new int[size];
+        weights = new int[size];
+        accumulator = new short[size];
+        accumulatorWeights = new short[size];
+        for (int i = 0; i < size; i++) {
+            features[i] = random.nextInt(128);
+            weights[i] = random.nextInt(256) - 128;
+            accumulatorWeights[i] = (short) (random.nextInt(64) - 32);
+        }
+    }
+
+    @Benchmark
+    public int dotScalar() {
+        return scalar.dot(features, weights, 0, size);
+    }
+
+    @Benchmark
+    public int dotVector() {
+        return vector.dot(features, weights, 0, size);
+    }
+
+    @Benchmark
+    public short[] accumulateScalar() {
+        scalar.add(accumulator, accumulatorWeights, 0, size);
+        scalar.subtract(accumulator, accumulatorWeights, 0, size);
+        return accumulator;
+    }
+
+    @Benchmark
+    public short[] accumulateVector() {
+        vector.add(accumulator, accumulatorWeights, 0, size);
+        vector.subtract(accumulator, accumulatorWeights, 0, size);
+        return accumulator;
+    }
+}
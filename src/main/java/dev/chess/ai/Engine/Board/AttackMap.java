@@ -0,0 +1,149 @@
+package dev.chess.ai.Engine.Board;
+
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Simulation.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Everything each side attacks in one position, built from the {@link Board} bitboards
+ * <p>
+ * Evaluation terms (king safety, mobility, ...) all want the same attack sets, so they're
+ * computed once per node and shared through {@link Board#getAttackMap()} instead of
+ * every evaluator rescanning the board
+ * <p>
+ * Side index 0 = white, 1 = black
+ */
+public class AttackMap {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int MAX_MOBILITY = 27; // queen in the middle of an empty board
+
+    private final long[][] attacksBy = new long[2][6]; // [side][Piece type]
+    private final long[] attacks = new long[2];
+    private final long[] attackedTwice = new long[2];
+
+    private final long[] kingZone = new long[2]; // squares around the side's own king
+
+    // Pieces of a side that hit the enemy king zone and how many zone squares they hit in total
+    private final int[][] kingAttackers = new int[2][6];
+    private final int[][] kingZoneHits = new int[2][6];
+
+    // [side][Piece type][safe squares] -> number of pieces with that many safe moves
+    private final int[][][] mobility = new int[2][6][MAX_MOBILITY + 1];
+
+    public AttackMap() {
+
+    }
+
+    public void compute(Board board) {
+        long occupied = board.getOccupancy();
+
+        // pawns first -> mobility of both sides needs the enemy pawn attacks
+        for (int side = 0; side < 2; side++) {
+            kingZone[side] = kingZone(board.getKingSquare(side == WHITE), side);
+
+            long pawns = board.getBitboard(Piece.PAWN + side * 6);
+            // captures towards the a file and towards the h file, a square in both is hit by two pawns
+            long west = side == WHITE ? (pawns & ~AttackTables.FILE_A) >>> 9 : (pawns & ~AttackTables.FILE_A) << 7;
+            long east = side == WHITE ? (pawns & ~AttackTables.FILE_H) >>> 7 : (pawns & ~AttackTables.FILE_H) << 9;
+            attacksBy[side][Piece.PAWN] = west | east;
+            attackedTwice[side] = west & east;
+        }
+
+        for (int side = 0; side < 2; side++) {
+            long enemyZone = kingZone[side ^ 1];
+            long all = attacksBy[side][Piece.PAWN];
+            long twice = attackedTwice[side];
+
+            // blocked-in squares don't count as mobility -> own pawns and king, anything an enemy pawn covers
+            long mobilityArea = ~(board.getBitboard(Piece.PAWN + side * 6)
+                    | board.getBitboard(Piece.KING + side * 6)
+                    | attacksBy[side ^ 1][Piece.PAWN]);
+
+            for (int type = Piece.KNIGHT; type <= Piece.KING; type++) {
+                kingAttackers[side][type] = 0;
+                kingZoneHits[side][type] = 0;
+                Arrays.fill(mobility[side][type], 0);
+
+                long typeAttacks = 0;
+                for (long bb = board.getBitboard(type + side * 6); bb != 0; bb &= bb - 1) {
+                    long pieceAttacks = AttackTables.attacks(type, Long.numberOfTrailingZeros(bb), occupied);
+
+                    if (type != Piece.KING) {
+                        long hits = pieceAttacks & enemyZone;
+                        if (hits != 0) {
+                            kingAttackers[side][type]++;
+                            kingZoneHits[side][type] += Long.bitCount(hits);
+                        }
+                        mobility[side][type][Long.bitCount(pieceAttacks & mobilityArea)]++;
+                    }
+
+                    twice |= (all | typeAttacks) & pieceAttacks;
+                    typeAttacks |= pieceAttacks;
+                }
+
+                all |= typeAttacks;
+                attacksBy[side][type] = typeAttacks;
+            }
+
+            attacks[side] = all;
+            attackedTwice[side] = twice;
+        }
+    }
+
+    // King ring plus one more row towards the enemy
+    private static long kingZone(int kingSquare, int side) {
+        if (kingSquare < 0 || kingSquare > 63) {
+            return 0;
+        }
+        long zone = AttackTables.KING[kingSquare] | (1L << kingSquare);
+        return zone | (side == WHITE ? zone >>> 8 : zone << 8);
+    }
+
+    /**
+     * @param type {@link Piece#getType()}
+     */
+    public long getAttacks(int side, int type) {
+        return attacksBy[side][type];
+    }
+
+    public long getAttacks(int side) {
+        return attacks[side];
+    }
+
+    public long getAttackedTwice(int side) {
+        return attackedTwice[side];
+    }
+
+    public long getKingZone(int side) {
+        return kingZone[side];
+    }
+
+    /**
+     * @return number of the side's pieces of that type attacking the enemy king zone
+     */
+    public int getKingAttackers(int side, int type) {
+        return kingAttackers[side][type];
+    }
+
+    /**
+     * @return enemy king zone squares hit by the side's pieces of that type, counted once per attacker
+     */
+    public int getKingZoneHits(int side, int type) {
+        return kingZoneHits[side][type];
+    }
+
+    /**
+     * Mobility histogram of one piece type -> index n holds how many of the side's pieces can reach n safe squares
+     * (not occupied by own pawns / king and not attacked by enemy pawns). Dot it with a per-count score table
+     * to get the mobility term, or read it as tuning features. Don't modify
+     *
+     * @param type {@link Piece#KNIGHT} to {@link Piece#QUEEN}
+     */
+    public int[] getMobility(int side, int type) {
+        return mobility[side][type];
+    }
+}
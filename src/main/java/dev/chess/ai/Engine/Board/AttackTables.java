@@ -0,0 +1,145 @@
+package dev.chess.ai.Engine.Board;
+
+import dev.chess.ai.Simulation.Piece;
+
+/**
+ * Precomputed attack sets for every piece on every square
+ * <p>
+ * Squares use the same indexing as {@link dev.chess.ai.Simulation.Board} -> row * 8 + col,
+ * so bit 0 = a8, bit 7 = h8, bit 56 = a1, bit 63 = h1. White pawns move towards bit 0
+ * <p>
+ * Sliders use the classical ray approach -> cut each ray at the first blocker.
+ * Not as fast as magics ({@link MagicBitBoard}) but no tables to generate and good enough for evaluation
+ *
+ * https://www.chessprogramming.org/Classical_Approach
+ */
+public class AttackTables {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = 0x8080808080808080L;
+
+    public static final long[] FILES = new long[8]; // [col]
+    public static final long[] ROWS = new long[8]; // [row], row 0 = rank 8
+
+    public static final long[] KNIGHT = new long[64];
+    public static final long[] KING = new long[64];
+    public static final long[][] PAWN = new long[2][64]; // [0 white, 1 black][square]
+
+    // Ray directions -> the first four add to the square index, the rest subtract
+    private static final int[] RAY_ROW = {1, 0, 1, 1, -1, 0, -1, -1};
+    private static final int[] RAY_COL = {0, 1, 1, -1, 0, -1, 1, -1};
+    private static final long[][] RAYS = new long[8][64];
+
+    private static final int[] ROOK_RAYS = {0, 1, 4, 5};
+    private static final int[] BISHOP_RAYS = {2, 3, 6, 7};
+
+    static {
+        for (int i = 0; i < 8; i++) {
+            FILES[i] = FILE_A << i;
+            ROWS[i] = 0xFFL << (i * 8);
+        }
+
+        int[][] knightOffsets = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+
+        for (int sq = 0; sq < 64; sq++) {
+            int row = sq / 8;
+            int col = sq % 8;
+
+            for (int[] offset : knightOffsets) {
+                KNIGHT[sq] |= bit(row + offset[0], col + offset[1]);
+            }
+
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr != 0 || dc != 0) {
+                        KING[sq] |= bit(row + dr, col + dc);
+                    }
+                }
+            }
+
+            PAWN[0][sq] = bit(row - 1, col - 1) | bit(row - 1, col + 1);
+            PAWN[1][sq] = bit(row + 1, col - 1) | bit(row + 1, col + 1);
+
+            for (int dir = 0; dir < 8; dir++) {
+                for (int r = row + RAY_ROW[dir], c = col + RAY_COL[dir]; r >= 0 && r < 8 && c >= 0 && c < 8;
+                     r += RAY_ROW[dir], c += RAY_COL[dir]) {
+                    RAYS[dir][sq] |= 1L << (r * 8 + c);
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+
+    }
+
+    // 0 if off the board
+    private static long bit(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8 ? 1L << (row * 8 + col) : 0;
+    }
+
+    private static long rayAttacks(int dir, int square, long occupied) {
+        long attacks = RAYS[dir][square];
+        long blockers = attacks & occupied;
+        if (blockers != 0) {
+            // nearest blocker -> lowest bit on increasing rays, highest on decreasing ones
+            int blocker = dir < 4 ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+            attacks ^= RAYS[dir][blocker];
+        }
+        return attacks;
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        long attacks = 0;
+        for (int dir : ROOK_RAYS) {
+            attacks |= rayAttacks(dir, square, occupied);
+        }
+        return attacks;
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        long attacks = 0;
+        for (int dir : BISHOP_RAYS) {
+            attacks |= rayAttacks(dir, square, occupied);
+        }
+        return attacks;
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * Squares attacked by every pawn in the set at once
+     *
+     * @param side 0 white, 1 black
+     */
+    public static long pawnAttacks(long pawns, int side) {
+        if (side == 0) {
+            return ((pawns & ~FILE_A) >>> 9) | ((pawns & ~FILE_H) >>> 7);
+        }
+        return ((pawns & ~FILE_A) << 7) | ((pawns & ~FILE_H) << 9);
+    }
+
+    /**
+     * Attacks of a piece type from a square -> pawns need {@link #PAWN} since they depend on color
+     *
+     * @param type {@link Piece#getType()}
+     */
+    public static long attacks(int type, int square, long occupied) {
+        switch (type) {
+            case Piece.KNIGHT:
+                return KNIGHT[square];
+            case Piece.BISHOP:
+                return bishopAttacks(square, occupied);
+            case Piece.ROOK:
+                return rookAttacks(square, occupied);
+            case Piece.QUEEN:
+                return queenAttacks(square, occupied);
+            case Piece.KING:
+                return KING[square];
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package dev.chess.ai.Engine.Board;
+
+import dev.chess.ai.Engine.Evaluation.EvaluationWeights;
+import dev.chess.ai.Engine.Move.Move;
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Simulation.Piece;
+
+/**
+ * Static exchange evaluation -> material result of the whole capture sequence on one square,
+ * both sides always recapturing with their cheapest piece and free to stop when it stops paying
+ * <p>
+ * Runs entirely on the {@link Board} bitboards: the attackers of the square are one bitboard, a capture
+ * removes the piece from a local occupancy and the slider attacks are recomputed through the hole
+ * so pieces lined up behind it (x-rays) join in. The board itself is never touched.
+ * Pins are ignored like in most engines -> it's a move ordering / pruning estimate, not a search
+ * <p>
+ * Owns its swap list -> one instance per thread, nothing is allocated per call
+ *
+ * https://www.chessprogramming.org/Static_Exchange_Evaluation
+ * https://www.chessprogramming.org/SEE_-_The_Swap_Algorithm
+ */
+public class StaticExchange {
+
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+
+    // at most 32 pieces can take part
+    private final int[] gain = new int[32];
+
+    /**
+     * @return material the side making the move wins (negative -> loses), centipawns
+     */
+    public int evaluate(Board board, Move move) {
+        int from = move.getFromRow() * 8 + move.getFromCol();
+        int to = move.getToRow() * 8 + move.getToCol();
+        Piece mover = board.getPiece(move.getFromRow(), move.getFromCol());
+        if (mover == null) {
+            return 0;
+        }
+
+        EvaluationWeights weights = board.getWeights();
+        long occupied = board.getOccupancy() ^ (1L << from);
+        occupied &= ~enPassantVictim(board, move);
+
+        int side = mover.isWhite() ? BLACK : WHITE; // side to recapture
+        int onSquare = weights.getMaterial(mover.getType());
+        long attackers = attackersTo(board, to, occupied) & occupied;
+
+        int depth = 0;
+        gain[0] = move.getCapturedPiece() == null ? 0 : weights.getMaterial(move.getCapturedPiece().getType());
+
+        while (true) {
+            long ours = attackers & board.getOccupancy(side == WHITE);
+            if (ours == 0) {
+                break;
+            }
+
+            int type = leastValuable(board, ours, side);
+            long bit = Long.lowestOneBit(ours & board.getBitboard(type + side * 6));
+
+            // a king can't take on a square the other side still covers
+            if (type == Piece.KING && (attackers & board.getOccupancy(side != WHITE)) != 0) {
+                break;
+            }
+
+            // gain[depth] -> what the side capturing now is up if the exchange ends after this capture
+            depth++;
+            gain[depth] = onSquare - gain[depth - 1];
+
+            occupied ^= bit;
+            attackers = (attackers | xrays(board, to, type, occupied)) & occupied;
+            onSquare = weights.getMaterial(type);
+            side ^= 1;
+        }
+
+        // negamax back up the swap list -> each side can stop instead of recapturing
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    /**
+     * Same as evaluate(board, move) >= threshold but stops as soon as the answer is known
+     * and never builds the swap list
+     */
+    public boolean isAtLeast(Board board, Move move, int threshold) {
+        int from = move.getFromRow() * 8 + move.getFromCol();
+        int to = move.getToRow() * 8 + move.getToCol();
+        Piece mover = board.getPiece(move.getFromRow(), move.getFromCol());
+        if (mover == null) {
+            return threshold <= 0;
+        }
+
+        EvaluationWeights weights = board.getWeights();
+
+        // balance from the mover's view, minus the threshold
+        int swap = (move.getCapturedPiece() == null ? 0 : weights.getMaterial(move.getCapturedPiece().getType())) - threshold;
+        if (swap < 0) {
+            return false; // even keeping the captured piece for free isn't enough
+        }
+        swap = weights.getMaterial(mover.getType()) - swap;
+        if (swap <= 0) {
+            return true; // even losing the mover is fine
+        }
+
+        long occupied = (board.getOccupancy() ^ (1L << from)) & ~enPassantVictim(board, move);
+        long attackers = attackersTo(board, to, occupied);
+        int side = mover.isWhite() ? WHITE : BLACK;
+        int result = 1; // 1 -> the mover comes out >= threshold
+
+        while (true) {
+            side ^= 1;
+            attackers &= occupied;
+            long ours = attackers & board.getOccupancy(side == WHITE);
+            if (ours == 0) {
+                break;
+            }
+            result ^= 1;
+
+            int type = leastValuable(board, ours, side);
+            if (type == Piece.KING) {
+                // only legal if the other side has nothing left on the square
+                return (attackers & board.getOccupancy(side != WHITE)) != 0 ? (result ^ 1) == 1 : result == 1;
+            }
+
+            swap = weights.getMaterial(type) - swap;
+            if (swap < result) {
+                break;
+            }
+
+            occupied ^= Long.lowestOneBit(ours & board.getBitboard(type + side * 6));
+            attackers |= xrays(board, to, type, occupied);
+        }
+        return result == 1;
+    }
+
+    /**
+     * Pieces of both colors attacking a square with the given occupancy
+     */
+    public static long attackersTo(Board board, int square, long occupied) {
+        long diagonal = board.getBitboard(Piece.BISHOP) | board.getBitboard(Piece.BISHOP + 6)
+                | board.getBitboard(Piece.QUEEN) | board.getBitboard(Piece.QUEEN + 6);
+        long straight = board.getBitboard(Piece.ROOK) | board.getBitboard(Piece.ROOK + 6)
+                | board.getBitboard(Piece.QUEEN) | board.getBitboard(Piece.QUEEN + 6);
+
+        // a white pawn attacks the square if a black pawn on the square would attack it back
+        return (AttackTables.PAWN[BLACK][square] & board.getBitboard(Piece.PAWN))
+                | (AttackTables.PAWN[WHITE][square] & board.getBitboard(Piece.PAWN + 6))
+                | (AttackTables.KNIGHT[square] & (board.getBitboard(Piece.KNIGHT) | board.getBitboard(Piece.KNIGHT + 6)))
+                | (AttackTables.KING[square] & (board.getBitboard(Piece.KING) | board.getBitboard(Piece.KING + 6)))
+                | (AttackTables.bishopAttacks(square, occupied) & diagonal)
+                | (AttackTables.rookAttacks(square, occupied) & straight);
+    }
+
+    // Sliders uncovered by a piece leaving along a line through the square
+    private static long xrays(Board board, int square, int type, long occupied) {
+        long found = 0;
+        if (type == Piece.PAWN || type == Piece.BISHOP || type == Piece.QUEEN) {
+            found |= AttackTables.bishopAttacks(square, occupied)
+                    & (board.getBitboard(Piece.BISHOP) | board.getBitboard(Piece.BISHOP + 6)
+                    | board.getBitboard(Piece.QUEEN) | board.getBitboard(Piece.QUEEN + 6));
+        }
+        if (type == Piece.ROOK || type == Piece.QUEEN) {
+            found |= AttackTables.rookAttacks(square, occupied)
+                    & (board.getBitboard(Piece.ROOK) | board.getBitboard(Piece.ROOK + 6)
+                    | board.getBitboard(Piece.QUEEN) | board.getBitboard(Piece.QUEEN + 6));
+        }
+        return found;
+    }
+
+    // Cheapest piece type among the side's attackers, ours must not be empty
+    private static int leastValuable(Board board, long ours, int side) {
+        for (int type = Piece.PAWN; type < Piece.KING; type++) {
+            if ((ours & board.getBitboard(type + side * 6)) != 0) {
+                return type;
+            }
+        }
+        return Piece.KING;
+    }
+
+    // En passant takes a pawn that isn't on the target square
+    private static long enPassantVictim(Board board, Move move) {
+        Piece captured = move.getCapturedPiece();
+        if (captured == null || captured.getType() != Piece.PAWN
+                || board.getPiece(move.getToRow(), move.getToCol()) != null) {
+            return 0;
+        }
+        return 1L << (move.getFromRow() * 8 + move.getToCol());
+    }
+}
@@ -1,9 +1,32 @@
 package dev.chess.ai.Engine;
 
+import dev.chess.ai.Engine.Evaluation.EvaluationWeights;
+import dev.chess.ai.Engine.Evaluation.Evaluator;
 import dev.chess.ai.Engine.Move.Move;
+import dev.chess.ai.Engine.Move.MoveGenerator;
 import dev.chess.ai.Engine.Search.Algorithm;
+import dev.chess.ai.Engine.Search.SearchContext;
+import dev.chess.ai.Engine.Search.SearchListener;
+import dev.chess.ai.Engine.Search.SearchResult;
+import dev.chess.ai.Engine.Table.TranspositionTable;
+import dev.chess.ai.Engine.Table.TranspositionTableEntry;
+import dev.chess.ai.Engine.Table.TranspositionTableSnapshot;
 import dev.chess.ai.Simulation.Board;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
 /**
  * Dependencies
  *
@@ -16,39 +39,298 @@ public class ChessEngine {
 
     private Algorithm currentAlgorithm;
 
+    // Iterations go out on the publisher's executor -> the search thread only drops them in a buffer
+    private final SubmissionPublisher<SearchResult> progress = new SubmissionPublisher<>();
+    private final SearchListener progressForwarder = this::publish;
+
+    // Async searches run one at a time, in order, on this thread
+    private volatile SearchTask pendingTask;
+
+    // Pondering runs until it's told to stop -> the iteration count only bounds it on forced lines
+    private static final int PONDER_DEPTH = SearchContext.MAX_PLY / 2;
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "engine-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     public ChessEngine(Algorithm algorithm) {
         this.currentAlgorithm = algorithm;
+        algorithm.addListener(progressForwarder);
     }
 
     /**
      * Find the best move using the current algorithm.
+     * Stats of the search are in {@link #getLastResult()} and on {@link #getProgressPublisher()}
      */
     public Move findBestMove(Board board, boolean isWhite, int depth) {
-        long startTime = System.currentTimeMillis();
+        return search(board, isWhite, depth).getBestMove();
+    }
+
+    /**
+     * Search with the current algorithm and keep the whole result -> PV, score, depth and counters.
+     * See {@link SearchResult}
+     */
+    public SearchResult search(Board board, boolean isWhite, int depth) {
+        return currentAlgorithm.search(board, isWhite, depth);
+    }
+
+    /**
+     * Search on the engine's search thread. The board belongs to the search until the future is done ->
+     * don't move pieces on it in the meantime
+     * <p>
+     * {@link #stop()} ends the search early and the future completes with the last finished iteration.
+     * Cancelling the future also stops the search but throws its result away
+     */
+    public Future<SearchResult> searchAsync(Board board, boolean isWhite, int depth) {
+        SearchTask task = new SearchTask(currentAlgorithm, board, isWhite, depth);
+        pendingTask = task;
+        searchThread.execute(task);
+        return task;
+    }
+
+    /**
+     * Search the position after the predicted reply on the opponent's time. Runs until {@link #stop()},
+     * cancel or {@link #ponderHit(int)} -> the table is warm for whatever they actually play
+     *
+     * @param board position after our move and the predicted reply, a copy the game doesn't touch
+     */
+    public Future<SearchResult> ponder(Board board, boolean isWhite) {
+        return searchAsync(board, isWhite, PONDER_DEPTH);
+    }
+
+    /**
+     * The opponent played the predicted move -> the ponder search becomes the normal search for our reply.
+     * It stops once an iteration of depth has finished, right away if it's already past it
+     */
+    public void ponderHit(int depth) {
+        SearchTask task = pendingTask;
+        if (task != null) {
+            task.control.depthLimit = depth;
+        }
+    }
+
+    /**
+     * Move to ponder on -> the reply the search expects to our best move
+     * <p>
+     * Comes from the PV, or from the table when the PV was cut short by a table hit.
+     * A table move is only trusted if it's legal -> another position can share the slot
+     *
+     * @param afterBestMove position after our best move, opponent to move
+     * @return null if there's no prediction
+     */
+    public Move getPonderMove(SearchResult result, Board afterBestMove, boolean isWhite) {
+        if (result.getPonderMove() != null) {
+            return result.getPonderMove();
+        }
+
+        TranspositionTable table = currentAlgorithm.getTranspositionTable();
+        TranspositionTableEntry entry = table == null ? null : table.probe(afterBestMove.getZobristHash());
+        if (entry == null || entry.bestMove == null) {
+            return null;
+        }
+        for (Move move : new MoveGenerator().generateAllMoves(afterBestMove, isWhite)) {
+            if (move.equals(entry.bestMove)) {
+                return move;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stop the running search -> the latest async one (even if it hasn't started yet) and any search
+     * of the current algorithm. Returns right away, the search finishes within a few thousand nodes
+     */
+    public void stop() {
+        SearchTask task = pendingTask;
+        if (task != null) {
+            task.stop();
+        }
+        currentAlgorithm.stop();
+    }
+
+    /**
+     * Block until every async search started so far has returned -> the board is free again
+     */
+    public void awaitIdle() throws InterruptedException {
+        try {
+            searchThread.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause()); // empty task, can't happen
+        }
+    }
+
+    /**
+     * Top lines moves with their scores and PVs in one search, best first. For analysis ->
+     * cheaper than one search per move since the lines share the table.
+     * See {@link Algorithm#searchMultiPv}
+     */
+    public List<SearchResult> searchMultiPv(Board board, boolean isWhite, int depth, int lines) {
+        return currentAlgorithm.searchMultiPv(board, isWhite, depth, lines);
+    }
+
+    /**
+     * @return result of the current algorithm's last search, null if it hasn't searched yet
+     */
+    public SearchResult getLastResult() {
+        return currentAlgorithm.getLastResult();
+    }
 
-        Move bestMove = currentAlgorithm.findBestMove(board, isWhite, depth);
+    /**
+     * Every finished iteration of every search, see {@link SearchResult}. Counters add up over the search
+     * <p>
+     * Delivered asynchronously, in order per subscriber. A subscriber that falls more than a buffer behind
+     * misses iterations -> the search never waits for a slow UI
+     */
+    public Flow.Publisher<SearchResult> getProgressPublisher() {
+        return progress;
+    }
 
-        long endTime = System.currentTimeMillis();
-        long elapsed = endTime - startTime;
+    /**
+     * Subscribe a callback to {@link #getProgressPublisher()}. Runs off the search thread
+     */
+    public void addProgressListener(Consumer<SearchResult> listener) {
+        progress.consume(listener);
+    }
 
-        System.out.println("Algorithm: " + currentAlgorithm.getName());
-        System.out.println("Nodes searched: " + currentAlgorithm.getNodesSearched());
-        System.out.println("Time: " + elapsed + "ms");
-        System.out.println("Nodes/sec: " +
-                (currentAlgorithm.getNodesSearched() * 1000 / Math.max(elapsed, 1)));
+    // on the search thread -> offer never blocks, a full buffer drops the iteration for that subscriber
+    private void publish(SearchResult result) {
+        if (progress.hasSubscribers()) {
+            progress.offer(result, null);
+        }
+    }
 
-        return bestMove;
+    /**
+     * Re-read the evaluation weights file. Takes effect from the next search, a running one keeps its weights
+     *
+     * @throws IllegalArgumentException if the file has a bad value -> the current weights stay
+     */
+    public EvaluationWeights reloadWeights() throws IOException {
+        return EvaluationWeights.reload();
     }
 
     /**
      * Swap the search algorithm.
      */
     public void setAlgorithm(Algorithm algorithm) {
+        this.currentAlgorithm.removeListener(progressForwarder);
         this.currentAlgorithm = algorithm;
+        algorithm.addListener(progressForwarder);
     }
 
     public Algorithm getCurrentAlgorithm() {
         return currentAlgorithm;
     }
 
+    /**
+     * Dump the current algorithm's transposition table. See {@link TranspositionTableSnapshot}
+     *
+     * @return number of entries written, 0 if the algorithm has no table
+     */
+    public int saveTranspositionTable(Path path) throws IOException {
+        TranspositionTable table = currentAlgorithm.getTranspositionTable();
+        if (table == null) {
+            return 0;
+        }
+        return TranspositionTableSnapshot.save(table, path, TranspositionTableSnapshot.DEFAULT_MIN_DEPTH,
+                getEvalFingerprint());
+    }
+
+    /**
+     * {@link #saveTranspositionTable(Path)} queued on the search thread -> runs after the searches started
+     * so far and before any started later, so nothing writes to the table while it's walked.
+     * The table is the current algorithm's at the time of the call
+     *
+     * @return number of entries written, fails with the IOException if the file couldn't be written
+     */
+    public CompletableFuture<Integer> saveTranspositionTableAsync(Path path) {
+        TranspositionTable table = currentAlgorithm.getTranspositionTable();
+        long fingerprint = getEvalFingerprint();
+        CompletableFuture<Integer> saved = new CompletableFuture<>();
+        searchThread.execute(() -> {
+            try {
+                saved.complete(table == null ? 0 : TranspositionTableSnapshot.save(table, path,
+                        TranspositionTableSnapshot.DEFAULT_MIN_DEPTH, fingerprint));
+            } catch (IOException | RuntimeException e) {
+                saved.completeExceptionally(e);
+            }
+        });
+        return saved;
+    }
+
+    /**
+     * Warm the current algorithm's transposition table from a previous snapshot
+     *
+     * @return number of entries loaded, 0 if there was nothing usable
+     */
+    public int loadTranspositionTable(Path path) throws IOException {
+        TranspositionTable table = currentAlgorithm.getTranspositionTable();
+        if (table == null) {
+            return 0;
+        }
+        return TranspositionTableSnapshot.load(table, path, getEvalFingerprint());
+    }
+
+    // The current algorithm's evaluator and the live weights -> what the table's scores were computed with.
+    // Boards pick up the live weights when a search starts and the table is cleared if they changed
+    private long getEvalFingerprint() {
+        Evaluator evaluator = currentAlgorithm.getEvaluator();
+        long fingerprint = evaluator == null ? 0 : evaluator.getFingerprint();
+        return fingerprint * 31 + EvaluationWeights.current().getFingerprint();
+    }
+
+    /**
+     * Async search with its own stop flag. The algorithm clears its flag when a search starts,
+     * this one only ever goes from false to true
+     */
+    private static final class SearchTask extends FutureTask<SearchResult> {
+
+        private final SearchControl control;
+
+        SearchTask(Algorithm algorithm, Board board, boolean isWhite, int depth) {
+            this(algorithm, board, isWhite, depth, new SearchControl());
+        }
+
+        private SearchTask(Algorithm algorithm, Board board, boolean isWhite, int depth, SearchControl control) {
+            super(() -> {
+                algorithm.addListener(control);
+                try {
+                    return algorithm.search(board, isWhite, depth, control);
+                } finally {
+                    algorithm.removeListener(control);
+                }
+            });
+            this.control = control;
+        }
+
+        void stop() {
+            control.stopped = true;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            stop(); // the search doesn't look at interrupts -> tell it directly
+            return super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    /**
+     * Stop signal of one async search -> stopped outright, or once an iteration of depthLimit has finished
+     */
+    private static final class SearchControl implements BooleanSupplier, SearchListener {
+
+        volatile boolean stopped;
+        volatile int depthLimit = Integer.MAX_VALUE;
+        volatile int completedDepth;
+
+        @Override
+        public boolean getAsBoolean() {
+            return stopped || completedDepth >= depthLimit;
+        }
+
+        @Override
+        public void onIteration(SearchResult result) {
+            completedDepth = result.getDepth();
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package dev.chess.ai.Engine.Evaluation;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size, always-replace cache of static evaluations keyed by zobrist hash
+ *
+ * The same position gets evaluated over and over (transpositions, quiescence, move ordering)
+ * so remembering the last score per slot skips most of the evaluator work
+ * <p>
+ * Lossy on purpose -> a collision on the slot just overwrites the old score. The full hash is
+ * stored and checked on every probe so a different position never reads someone else's score
+ *
+ * https://www.chessprogramming.org/Evaluation_Hash_Table
+ */
+public class EvaluationCache {
+
+    private final long[] keys;
+    private final double[] scores;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    /**
+     * @param size number of entries, rounded up to a power of two
+     */
+    public EvaluationCache(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.keys = new long[capacity];
+        this.scores = new double[capacity];
+        this.mask = capacity - 1;
+        clear();
+    }
+
+    /**
+     * @return true if the position is cached, the score can then be read with {@link #getScore(long)}
+     */
+    public boolean contains(long zobristHash) {
+        probes++;
+        if (keys[index(zobristHash)] == zobristHash) {
+            hits++;
+            return true;
+        }
+        return false;
+    }
+
+    public double getScore(long zobristHash) {
+        return scores[index(zobristHash)];
+    }
+
+    public void store(long zobristHash, double score) {
+        int index = index(zobristHash);
+        keys[index] = zobristHash;
+        scores[index] = score;
+    }
+
+    public void clear() {
+        // empty slots need a key no real position will have. A hash of exactly ~0 is as unlikely as any other collision
+        Arrays.fill(keys, ~0L);
+        probes = 0;
+        hits = 0;
+    }
+
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    private int index(long zobristHash) {
+        // the low bits are used by most other tables -> mix in the high bits
+        return (int) (zobristHash ^ (zobristHash >>> 32)) & mask;
+    }
+}
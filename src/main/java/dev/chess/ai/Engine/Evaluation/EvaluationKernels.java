@@ -0,0 +1,62 @@
+package dev.chess.ai.Engine.Evaluation;
+
+/**
+ * Dot products and friends for evaluation terms written as feature vectors
+ * (network layers, mobility counts x weights, king zone attack weights...)
+ * <p>
+ * Picked once at startup:
+ * {@link VectorEvaluationKernels} -> jdk.incubator.vector SIMD, scales with AVX2 / AVX-512 width.
+ * Only if the module was added (--add-modules jdk.incubator.vector)
+ * {@link ScalarEvaluationKernels} -> plain Java fallback
+ * <p>
+ * -Dchess.eval.kernels=scalar forces the fallback (handy for comparing the two in self-play)
+ */
+public abstract class EvaluationKernels {
+
+    private static final EvaluationKernels INSTANCE = create();
+
+    public static EvaluationKernels get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return sum(a[i] * b[bOffset + i]) for i in [0, length)
+     */
+    public abstract int dot(int[] a, int[] b, int bOffset, int length);
+
+    /**
+     * acc[i] += weights[offset + i] for i in [0, size)
+     */
+    public abstract void add(short[] acc, short[] weights, int offset, int size);
+
+    /**
+     * acc[i] -= weights[offset + i] for i in [0, size)
+     */
+    public abstract void subtract(short[] acc, short[] weights, int offset, int size);
+
+    public abstract String getName();
+
+    /**
+     * out[o] = bias[o] + sum(in[i] * weights[o * inSize + i]) -> one dot product per output
+     */
+    public void affine(int[] in, int inSize, int[] weights, int[] bias, int[] out, int outSize) {
+        for (int o = 0; o < outSize; o++) {
+            out[o] = bias[o] + dot(in, weights, o * inSize, inSize);
+        }
+    }
+
+    // The vector class is only loaded by name so it's never touched when the module is missing
+    private static EvaluationKernels create() {
+        boolean forceScalar = "scalar".equalsIgnoreCase(System.getProperty("chess.eval.kernels"));
+        if (!forceScalar && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (EvaluationKernels) Class.forName("dev.chess.ai.Engine.Evaluation.VectorEvaluationKernels")
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.err.println("Vector kernels unavailable, using scalar: " + e.getMessage());
+            }
+        }
+        return new ScalarEvaluationKernels();
+    }
+}
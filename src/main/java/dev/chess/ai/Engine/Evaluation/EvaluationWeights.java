@@ -0,0 +1,350 @@
+package dev.chess.ai.Engine.Evaluation;
+
+import dev.chess.ai.Engine.Evaluation.impl.Material.MaterialEvaluator;
+import dev.chess.ai.Engine.Evaluation.impl.Mobility.MobilityEvaluator;
+import dev.chess.ai.Engine.Evaluation.impl.Position.PawnPassEvaluator;
+import dev.chess.ai.Engine.Evaluation.impl.Position.PieceSquareTables;
+import dev.chess.ai.Simulation.Piece;
+import dev.chess.ai.Util.Annotation.Value;
+import dev.chess.ai.Util.PropertyLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable snapshot of every tunable evaluation weight
+ * <p>
+ * Evaluators keep their hand entered values as defaults, a weights file overrides any of them.
+ * Fields are filled by {@link PropertyLoader#inject(Object, Properties)} -> the file uses the same format
+ * MATERIAL=100,320,330,500,900,20000
+ * PST_MG=row for pawn;row for knight;...   (64 values per piece, white's view, a8 first)
+ * <p>
+ * The live snapshot sits behind an {@link AtomicReference}. {@link #reload()} builds a new one and swaps it in,
+ * a {@link dev.chess.ai.Simulation.Board} only picks it up in {@link dev.chess.ai.Simulation.Board#refreshWeights()}
+ * which the search calls before it starts -> a running search never sees weights change under it
+ * <p>
+ * Arrays returned by the getters are shared, never modify them
+ * <p>
+ * Path comes from EVAL_WEIGHTS_PATH in application.properties, default {@link #DEFAULT_PATH}
+ */
+public final class EvaluationWeights {
+
+    public static final String DEFAULT_PATH = "weights/eval.properties";
+
+    // Key suffixes for per piece weights, [Piece#getType]
+    public static final String[] PIECE_NAMES = {"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"};
+
+    private static final EvaluationWeights DEFAULTS = createDefaults();
+    private static final AtomicReference<EvaluationWeights> current = new AtomicReference<>(loadOrDefaults(getPath()));
+
+    @Value(key = "MATERIAL")
+    private int[] material; // [Piece#getType]
+
+    @Value(key = "PST_MG")
+    private int[][] pstMidgame; // [Piece#getType][square], white's view
+    @Value(key = "PST_EG")
+    private int[][] pstEndgame;
+
+    @Value(key = "PAWN_ISOLATED")
+    private int pawnIsolated;
+    @Value(key = "PAWN_DOUBLED")
+    private int pawnDoubled;
+    @Value(key = "PAWN_BACKWARD")
+    private int pawnBackward;
+    @Value(key = "PAWN_CONNECTED")
+    private int[] pawnConnected; // [rank from own side]
+    @Value(key = "PAWN_PASSED")
+    private int[] pawnPassed;
+
+    @Value(key = "MOBILITY_MG")
+    private int[][] mobilityMidgame; // [Piece#getType][safe squares], pawn / king rows empty
+    @Value(key = "MOBILITY_EG")
+    private int[][] mobilityEndgame;
+
+    // Signed (white +, black -) piece-square values by [Piece#getIndex][square] -> what Board adds up
+    private final int[][] signedMidgame = new int[12][64];
+    private final int[][] signedEndgame = new int[12][64];
+
+    private EvaluationWeights() {
+
+    }
+
+    /**
+     * @return the live snapshot
+     */
+    public static EvaluationWeights current() {
+        return current.get();
+    }
+
+    /**
+     * Make a snapshot live. Boards switch to it on their next {@link dev.chess.ai.Simulation.Board#refreshWeights()}
+     */
+    public static void set(EvaluationWeights weights) {
+        current.set(weights);
+    }
+
+    /**
+     * Re-read the weights file and swap it in. The old snapshot stays live if the file can't be read
+     *
+     * @return the snapshot now live
+     * @throws IllegalArgumentException if the file has a bad value or a table of the wrong size
+     */
+    public static EvaluationWeights reload() throws IOException {
+        EvaluationWeights weights = load(getPath());
+        current.set(weights);
+        return weights;
+    }
+
+    public static EvaluationWeights getDefaults() {
+        return DEFAULTS;
+    }
+
+    public static Path getPath() {
+        String configured = PropertyLoader.get("EVAL_WEIGHTS_PATH");
+        return Path.of(configured != null ? configured : DEFAULT_PATH);
+    }
+
+    /**
+     * Defaults overridden by whatever the file has. Missing file -> defaults
+     */
+    public static EvaluationWeights load(Path path) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+            }
+        }
+        return from(DEFAULTS, properties);
+    }
+
+    private static EvaluationWeights loadOrDefaults(Path path) {
+        try {
+            return load(path);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed to load evaluation weights from " + path + ", using defaults: " + e.getMessage());
+            return DEFAULTS;
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        try (OutputStream out = Files.newOutputStream(path)) {
+            PropertyLoader.extract(this).store(out, "Evaluation weights, see EvaluationWeights");
+        }
+    }
+
+    /**
+     * Every weight as a flat array per key, 2D tables split per piece (PST_MG_KNIGHT, ...) and empty rows left out.
+     * This is the layout the tuner works in
+     */
+    public Map<String, int[]> toFlat() {
+        Map<String, int[]> flat = new LinkedHashMap<>();
+        flat.put("MATERIAL", material.clone());
+        putRows(flat, "PST_MG_", pstMidgame);
+        putRows(flat, "PST_EG_", pstEndgame);
+        flat.put("PAWN_ISOLATED", new int[]{pawnIsolated});
+        flat.put("PAWN_DOUBLED", new int[]{pawnDoubled});
+        flat.put("PAWN_BACKWARD", new int[]{pawnBackward});
+        flat.put("PAWN_CONNECTED", pawnConnected.clone());
+        flat.put("PAWN_PASSED", pawnPassed.clone());
+        putRows(flat, "MOBILITY_MG_", mobilityMidgame);
+        putRows(flat, "MOBILITY_EG_", mobilityEndgame);
+        return flat;
+    }
+
+    /**
+     * Hash of every weight in {@link #toFlat()} -> snapshots with the same fingerprint score positions the same
+     */
+    public long getFingerprint() {
+        long fingerprint = 1;
+        for (Map.Entry<String, int[]> entry : toFlat().entrySet()) {
+            fingerprint = fingerprint * 31 + entry.getKey().hashCode();
+            fingerprint = fingerprint * 31 + Arrays.hashCode(entry.getValue());
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Reverse of {@link #toFlat()}. Keys not in the map keep this snapshot's values
+     */
+    public EvaluationWeights withFlat(Map<String, int[]> flat) {
+        Properties properties = PropertyLoader.extract(this);
+        Properties rows = new Properties();
+        for (Map.Entry<String, int[]> entry : flat.entrySet()) {
+            rows.setProperty(entry.getKey(), join(entry.getValue()));
+        }
+
+        mergeRows(properties, rows, "PST_MG");
+        mergeRows(properties, rows, "PST_EG");
+        mergeRows(properties, rows, "MOBILITY_MG");
+        mergeRows(properties, rows, "MOBILITY_EG");
+        for (String key : rows.stringPropertyNames()) {
+            if (properties.containsKey(key)) {
+                properties.setProperty(key, rows.getProperty(key));
+            }
+        }
+        return from(this, properties);
+    }
+
+    // ========== Hot path getters ==========
+
+    public int getMaterial(int pieceType) {
+        return material[pieceType];
+    }
+
+    /**
+     * @return signed table by [{@link Piece#getIndex()}][row * 8 + col]
+     */
+    public int[][] getPstMidgame() {
+        return signedMidgame;
+    }
+
+    public int[][] getPstEndgame() {
+        return signedEndgame;
+    }
+
+    public int getPawnIsolated() {
+        return pawnIsolated;
+    }
+
+    public int getPawnDoubled() {
+        return pawnDoubled;
+    }
+
+    public int getPawnBackward() {
+        return pawnBackward;
+    }
+
+    public int[] getPawnConnected() {
+        return pawnConnected;
+    }
+
+    public int[] getPawnPassed() {
+        return pawnPassed;
+    }
+
+    public int[] getMobilityMidgame(int pieceType) {
+        return mobilityMidgame[pieceType];
+    }
+
+    public int[] getMobilityEndgame(int pieceType) {
+        return mobilityEndgame[pieceType];
+    }
+
+    // ========== Building ==========
+
+    private static EvaluationWeights createDefaults() {
+        EvaluationWeights weights = new EvaluationWeights();
+        weights.material = MaterialEvaluator.getDefaultValues();
+        weights.pstMidgame = new int[6][];
+        weights.pstEndgame = new int[6][];
+        weights.mobilityMidgame = new int[6][];
+        weights.mobilityEndgame = new int[6][];
+        for (int type = Piece.PAWN; type <= Piece.KING; type++) {
+            weights.pstMidgame[type] = PieceSquareTables.getDefaultTable(type, false);
+            weights.pstEndgame[type] = PieceSquareTables.getDefaultTable(type, true);
+            weights.mobilityMidgame[type] = MobilityEvaluator.getDefaultTable(type, false);
+            weights.mobilityEndgame[type] = MobilityEvaluator.getDefaultTable(type, true);
+        }
+        weights.pawnIsolated = PawnPassEvaluator.DEFAULT_ISOLATED_PENALTY;
+        weights.pawnDoubled = PawnPassEvaluator.DEFAULT_DOUBLED_PENALTY;
+        weights.pawnBackward = PawnPassEvaluator.DEFAULT_BACKWARD_PENALTY;
+        weights.pawnConnected = PawnPassEvaluator.getDefaultConnectedBonus();
+        weights.pawnPassed = PawnPassEvaluator.getDefaultPassedBonus();
+        weights.buildSignedTables();
+        return weights;
+    }
+
+    /**
+     * Copy of base with every key in properties applied, checked against base's table sizes
+     */
+    private static EvaluationWeights from(EvaluationWeights base, Properties properties) {
+        EvaluationWeights weights = new EvaluationWeights();
+        PropertyLoader.inject(weights, PropertyLoader.extract(base));
+        PropertyLoader.inject(weights, properties);
+
+        checkShape("MATERIAL", weights.material, base.material);
+        checkShape("PST_MG", weights.pstMidgame, base.pstMidgame);
+        checkShape("PST_EG", weights.pstEndgame, base.pstEndgame);
+        checkShape("PAWN_CONNECTED", weights.pawnConnected, base.pawnConnected);
+        checkShape("PAWN_PASSED", weights.pawnPassed, base.pawnPassed);
+        checkShape("MOBILITY_MG", weights.mobilityMidgame, base.mobilityMidgame);
+        checkShape("MOBILITY_EG", weights.mobilityEndgame, base.mobilityEndgame);
+
+        weights.buildSignedTables();
+        return weights;
+    }
+
+    private void buildSignedTables() {
+        for (int type = Piece.PAWN; type <= Piece.KING; type++) {
+            for (int square = 0; square < 64; square++) {
+                signedMidgame[type][square] = pstMidgame[type][square];
+                signedEndgame[type][square] = pstEndgame[type][square];
+                signedMidgame[type + 6][square] = -pstMidgame[type][square ^ 56]; // flip the row for black
+                signedEndgame[type + 6][square] = -pstEndgame[type][square ^ 56];
+            }
+        }
+    }
+
+    private static void checkShape(String key, int[] values, int[] expected) {
+        if (values.length != expected.length) {
+            throw new IllegalArgumentException(key + ": expected " + expected.length + " values, got " + values.length);
+        }
+    }
+
+    private static void checkShape(String key, int[][] values, int[][] expected) {
+        if (values.length != expected.length) {
+            throw new IllegalArgumentException(key + ": expected " + expected.length + " rows, got " + values.length);
+        }
+        for (int row = 0; row < values.length; row++) {
+            checkShape(key + "[" + row + "]", values[row], expected[row]);
+        }
+    }
+
+    private static void putRows(Map<String, int[]> flat, String prefix, int[][] table) {
+        for (int type = 0; type < table.length; type++) {
+            if (table[type].length > 0) {
+                flat.put(prefix + PIECE_NAMES[type], table[type].clone());
+            }
+        }
+    }
+
+    // PST_MG_KNIGHT=... -> row 1 of PST_MG
+    private static void mergeRows(Properties properties, Properties rows, String key) {
+        String[] table = properties.getProperty(key).split(";", -1);
+        boolean changed = false;
+        for (int type = 0; type < PIECE_NAMES.length; type++) {
+            String row = rows.getProperty(key + "_" + PIECE_NAMES[type]);
+            if (row != null) {
+                table[type] = row;
+                changed = true;
+            }
+        }
+        if (changed) {
+            properties.setProperty(key, String.join(";", table));
+        }
+    }
+
+    private static String join(int[] values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(values[i]);
+        }
+        return builder.toString();
+    }
+}
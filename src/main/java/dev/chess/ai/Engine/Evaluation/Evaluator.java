@@ -3,10 +3,56 @@ package dev.chess.ai.Engine.Evaluation;
 import dev.chess.ai.Simulation.Board;
 
 public interface Evaluator {
+
+    // How much work evaluate does -> cheaper terms run first so lazy evaluation can skip the rest
+    int COST_CHEAP = 0;     // O(1), read from the incremental Board state
+    int COST_MEDIUM = 1;    // mostly a hash table probe
+    int COST_EXPENSIVE = 2; // attack maps / loops over pieces
+
     /**
      * Evaluates the board position
      *
      * @return positive score favors white, negative favors black
      */
     double evaluate(Board board);
+
+    /**
+     * Window aware evaluation. Implementations may stop early once the score can't land inside (alpha, beta),
+     * the result is then only a bound -> anything <= alpha is an upper bound, anything >= beta a lower bound
+     * <p>
+     * alpha / beta are white positive like the score
+     */
+    default double evaluate(Board board, double alpha, double beta) {
+        return evaluate(board);
+    }
+
+    /**
+     * @return one of {@link #COST_CHEAP}, {@link #COST_MEDIUM}, {@link #COST_EXPENSIVE}
+     */
+    default int getCost() {
+        return COST_CHEAP;
+    }
+
+    /**
+     * Largest absolute score this term can add. Used as the lazy evaluation margin -> it has to be a hard bound,
+     * a term that goes past it makes the lazy bound wrong. Anything finite has to be enforced with {@link #clamp}
+     */
+    default double getMaxMagnitude() {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Identifies what this evaluator scores with -> scores saved under another fingerprint mean something else.
+     * Evaluators whose output depends on more than their class (loaded weights, sub terms) override it
+     */
+    default long getFingerprint() {
+        return getClass().getName().hashCode();
+    }
+
+    /**
+     * Keeps a term inside the magnitude it declares
+     */
+    static double clamp(double score, double maxMagnitude) {
+        return Math.max(-maxMagnitude, Math.min(maxMagnitude, score));
+    }
 }
@@ -1,40 +1,142 @@
 package dev.chess.ai.Engine.Evaluation;
 
+import dev.chess.ai.Engine.Evaluation.impl.Endgame.EndgameRegistry;
+import dev.chess.ai.Engine.Evaluation.impl.KingSaftey.KingSafetyEvaluation;
 import dev.chess.ai.Engine.Evaluation.impl.Material.MaterialEvaluator;
+import dev.chess.ai.Engine.Evaluation.impl.Mobility.MobilityEvaluator;
 import dev.chess.ai.Engine.Evaluation.impl.Position.PawnPassEvaluator;
 import dev.chess.ai.Engine.Evaluation.impl.Position.PieceSquareTables;
 import dev.chess.ai.Simulation.Board;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
+/**
+ * Sums every registered {@link Evaluator}
+ * <p>
+ * Evaluators run cheapest first. With a window ({@link #evaluate(Board, double, double)}) the sum is checked
+ * before each expensive term -> if the score plus everything the remaining terms could still add
+ * can't reach the window, the rest is skipped (lazy evaluation)
+ *
+ * <p>
+ * Material with a dedicated evaluation ({@link EndgameRegistry}) skips the terms entirely
+ *
+ * https://www.chessprogramming.org/Lazy_Evaluation
+ */
 public class MasterEvaluator implements Evaluator {
 
+    private static final int CACHE_SIZE = 1 << 16;
+
     private final List<Evaluator> evaluators;
+    private final EvaluationCache cache;
+
+    // margins[i] -> sum of getMaxMagnitude for evaluators i..n-1
+    private double[] margins = new double[1];
+
+    private long lazyExits;
+
+    // Weights the cached scores were computed with
+    private EvaluationWeights weights;
 
     public MasterEvaluator() {
         this.evaluators = new ArrayList<>();
+        this.cache = new EvaluationCache(CACHE_SIZE);
 
         addEvaluator(new MaterialEvaluator());
-        //addEvaluator(new PawnPassEvaluator()); // this breaks shit idk why
+        addEvaluator(new PawnPassEvaluator());
         addEvaluator(new PieceSquareTables());
-        // addEvaluator(new KingSafetyEvaluation());
+        addEvaluator(new KingSafetyEvaluation());
+        addEvaluator(new MobilityEvaluator());
     }
 
     public MasterEvaluator(List<Evaluator> evaluators) {
-        this.evaluators = new ArrayList<>(evaluators);
+        this.evaluators = new ArrayList<>();
+        this.cache = new EvaluationCache(CACHE_SIZE);
+
+        for (Evaluator evaluator : evaluators) {
+            addEvaluator(evaluator);
+        }
     }
 
     public void addEvaluator(Evaluator evaluator) {
         evaluators.add(evaluator);
+        evaluators.sort(Comparator.comparingInt(Evaluator::getCost)); // stable -> same cost keeps insertion order
+
+        margins = new double[evaluators.size() + 1];
+        for (int i = evaluators.size() - 1; i >= 0; i--) {
+            margins[i] = margins[i + 1] + evaluators.get(i).getMaxMagnitude();
+        }
+
+        cache.clear(); // cached scores are missing the new term
+    }
+
+    @Override
+    public long getFingerprint() {
+        long fingerprint = Evaluator.super.getFingerprint();
+        for (Evaluator evaluator : evaluators) {
+            fingerprint = fingerprint * 31 + evaluator.getFingerprint();
+        }
+        return fingerprint;
     }
 
     @Override
     public double evaluate(Board board) {
+        return evaluate(board, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    @Override
+    public double evaluate(Board board, double alpha, double beta) {
+        if (board.getWeights() != weights) {
+            weights = board.getWeights();
+            cache.clear(); // scored with the old snapshot
+        }
+
+        long hash = board.getZobristHash();
+        if (cache.contains(hash)) {
+            return cache.getScore(hash);
+        }
+
+        // known endgame -> its own evaluation replaces the general terms
+        Evaluator endgame = EndgameRegistry.probe(board.getMaterialKey());
+        if (endgame != null) {
+            double score = endgame.evaluate(board);
+            cache.store(hash, score);
+            return score;
+        }
+
         double score = 0;
-        for (Evaluator e : evaluators) {
+        for (int i = 0; i < evaluators.size(); i++) {
+            Evaluator e = evaluators.get(i);
+
+            if (e.getCost() != COST_CHEAP) {
+                // only a bound -> not cached, a later probe with a wider window needs the exact score
+                double margin = margins[i];
+                if (score + margin <= alpha) {
+                    lazyExits++;
+                    return score + margin;
+                }
+                if (score - margin >= beta) {
+                    lazyExits++;
+                    return score - margin;
+                }
+            }
+
             score += e.evaluate(board);
         }
+
+        cache.store(hash, score);
         return score;
     }
-}
\ No newline at end of file
+
+    public EvaluationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return number of evaluations cut short by the window since creation
+     */
+    public long getLazyExits() {
+        return lazyExits;
+    }
+}
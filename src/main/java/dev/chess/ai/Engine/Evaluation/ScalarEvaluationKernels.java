@@ -0,0 +1,35 @@
+package dev.chess.ai.Engine.Evaluation;
+
+/**
+ * Fallback when the vector module isn't available. The JIT auto-vectorizes some of this anyway
+ */
+class ScalarEvaluationKernels extends EvaluationKernels {
+
+    @Override
+    public int dot(int[] a, int[] b, int bOffset, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void add(short[] acc, short[] weights, int offset, int size) {
+        for (int i = 0; i < size; i++) {
+            acc[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] acc, short[] weights, int offset, int size) {
+        for (int i = 0; i < size; i++) {
+            acc[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Scalar";
+    }
+}
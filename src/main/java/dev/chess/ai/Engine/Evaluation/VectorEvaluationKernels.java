@@ -0,0 +1,78 @@
+package dev.chess.ai.Engine.Evaluation;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernels using the preferred vector width of the CPU (AVX2 -> 8 ints, AVX-512 -> 16 ints)
+ *
+ * Only created through {@link EvaluationKernels#get()} after checking the module is loaded
+ *
+ * https://openjdk.org/jeps/414
+ */
+class VectorEvaluationKernels extends EvaluationKernels {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+
+    @Override
+    public int dot(int[] a, int[] b, int bOffset, int length) {
+        // shorter than one vector -> the scalar loop is cheaper than setting up lanes
+        if (length < INTS.length()) {
+            int sum = 0;
+            for (int i = 0; i < length; i++) {
+                sum += a[i] * b[bOffset + i];
+            }
+            return sum;
+        }
+
+        int bound = INTS.loopBound(length);
+        IntVector sums = IntVector.zero(INTS);
+        int i = 0;
+        for (; i < bound; i += INTS.length()) {
+            IntVector x = IntVector.fromArray(INTS, a, i);
+            IntVector w = IntVector.fromArray(INTS, b, bOffset + i);
+            sums = x.mul(w).add(sums);
+        }
+        int sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void add(short[] acc, short[] weights, int offset, int size) {
+        int bound = SHORTS.loopBound(size);
+        int i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, acc, i)
+                    .add(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(acc, i);
+        }
+        for (; i < size; i++) {
+            acc[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] acc, short[] weights, int offset, int size) {
+        int bound = SHORTS.loopBound(size);
+        int i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, acc, i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(acc, i);
+        }
+        for (; i < size; i++) {
+            acc[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Vector (" + INTS.vectorBitSize() + "-bit)";
+    }
+}
@@ -0,0 +1,42 @@
+package dev.chess.ai.Engine.Evaluation.impl.Endgame;
+
+import dev.chess.ai.Simulation.Board;
+
+/**
+ * Evaluation for one exact material signature, see {@link EndgameRegistry}
+ * <p>
+ * Written from the strong side's view so one function covers both colors
+ */
+@FunctionalInterface
+public interface EndgameFunction {
+
+    // Won for sure but not a mate score yet -> above any normal eval, below the mate scores
+    int KNOWN_WIN = 10000;
+
+    /**
+     * @param strongIsWhite color of the side the signature was registered for (KBN in KBNvK)
+     * @return positive -> good for the strong side
+     */
+    double evaluate(Board board, boolean strongIsWhite);
+
+    /**
+     * 27 in the center up to 90 in a corner -> drive the lone king to the edge
+     */
+    static int pushToEdge(int square) {
+        int fileDistance = Math.min(square % 8, 7 - square % 8);
+        int rowDistance = Math.min(square / 8, 7 - square / 8);
+        return 90 - (7 * fileDistance * fileDistance + 7 * rowDistance * rowDistance) / 2;
+    }
+
+    /**
+     * 120 with the kings next to each other down to 0 across the board -> bring the strong king in
+     */
+    static int pushClose(int square1, int square2) {
+        return 140 - 20 * distance(square1, square2);
+    }
+
+    // King moves between two squares
+    static int distance(int square1, int square2) {
+        return Math.max(Math.abs(square1 / 8 - square2 / 8), Math.abs(square1 % 8 - square2 % 8));
+    }
+}
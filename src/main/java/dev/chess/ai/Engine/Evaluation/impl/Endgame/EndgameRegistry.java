@@ -0,0 +1,114 @@
+package dev.chess.ai.Engine.Evaluation.impl.Endgame;
+
+import dev.chess.ai.Engine.Evaluation.Evaluator;
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Util.Board.MaterialKey;
+
+/**
+ * Endgames the general evaluation gets wrong, looked up by the exact material on the board ({@link MaterialKey})
+ * <p>
+ * - KPK -> bitbase, exact win / draw
+ * - KQK, KRK -> drive the lone king to the edge
+ * - KBNK -> drive the lone king to a corner of the bishop's color
+ * - KK, KNK, KBK, KNNK -> draw. The first three can't mate at all ({@link #isDraw}) so the search can stop there
+ * <p>
+ * Every signature is registered for both colors. Built once, read only after -> shared by every thread.
+ * Probed on every evaluation so it's a small open addressed table of primitive keys, no boxing
+ *
+ * https://www.chessprogramming.org/Material_Hash_Table
+ */
+public final class EndgameRegistry {
+
+    private static final int TABLE_SIZE = 64; // power of 2, well above the number of signatures
+
+    private static final long[] KEYS = new long[TABLE_SIZE];
+    private static final Evaluator[] ENDGAMES = new Evaluator[TABLE_SIZE];
+    private static final boolean[] DEAD_DRAWS = new boolean[TABLE_SIZE];
+
+    static {
+        register("KPvK", new KPKEndgame());
+        register("KQvK", new KXKEndgame());
+        register("KRvK", new KXKEndgame());
+        register("KBNvK", new KBNKEndgame());
+
+        EndgameFunction draw = (board, strongIsWhite) -> 0;
+        register("KvK", draw);
+        register("KNvK", draw);
+        register("KBvK", draw);
+        register("KNNvK", draw); // can't be forced
+
+        for (String signature : new String[]{"KvK", "KNvK", "KBvK"}) {
+            long key = MaterialKey.of(signature);
+            DEAD_DRAWS[slot(key)] = true;
+            DEAD_DRAWS[slot(MaterialKey.mirror(key))] = true;
+        }
+    }
+
+    private EndgameRegistry() {
+
+    }
+
+    /**
+     * @param signature white pieces v black pieces with the strong side first, e.g. KBNvK
+     */
+    private static void register(String signature, EndgameFunction function) {
+        long key = MaterialKey.of(signature);
+        put(key, board -> function.evaluate(board, true));
+        // 0 - x rather than -x -> a draw stays 0.0 instead of turning into -0.0
+        put(MaterialKey.mirror(key), board -> 0 - function.evaluate(board, false));
+    }
+
+    private static void put(long key, Evaluator evaluator) {
+        int slot = slot(key);
+        KEYS[slot] = key;
+        ENDGAMES[slot] = evaluator;
+    }
+
+    /**
+     * @return evaluator for this material (white positive like every other evaluator), null if there's none
+     */
+    public static Evaluator probe(long materialKey) {
+        int slot = find(materialKey);
+        return slot < 0 ? null : ENDGAMES[slot];
+    }
+
+    /**
+     * @return true if neither side has mating material left
+     */
+    public static boolean isDraw(long materialKey) {
+        int slot = find(materialKey);
+        return slot >= 0 && DEAD_DRAWS[slot];
+    }
+
+    public static boolean isDraw(Board board) {
+        return isDraw(board.getMaterialKey());
+    }
+
+    // Slot holding the key, -1 if it isn't registered
+    private static int find(long key) {
+        for (int i = home(key); ENDGAMES[i] != null; i = (i + 1) & (TABLE_SIZE - 1)) {
+            if (KEYS[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int freeSlot(long key) {
+        int i = home(key);
+        while (ENDGAMES[i] != null) {
+            i = (i + 1) & (TABLE_SIZE - 1);
+        }
+        return i;
+    }
+
+    // Slot of the key, or where it goes if it's new
+    private static int slot(long key) {
+        int slot = find(key);
+        return slot < 0 ? freeSlot(key) : slot;
+    }
+
+    private static int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 58); // top 6 bits -> TABLE_SIZE
+    }
+}
@@ -0,0 +1,43 @@
+package dev.chess.ai.Engine.Evaluation.impl.Endgame;
+
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Simulation.Piece;
+
+/**
+ * Bishop + knight vs a lone king
+ * <p>
+ * Mate only works in a corner the bishop can cover -> the lone king is driven to one of the two
+ * corners of the bishop's color instead of just any edge, otherwise the search walks it around the
+ * wrong corner forever
+ *
+ * https://www.chessprogramming.org/KBNK_Endgame
+ */
+public class KBNKEndgame implements EndgameFunction {
+
+    // Per step towards the right corner -> has to outweigh bringing the king closer
+    private static final int CORNER_WEIGHT = 50;
+
+    @Override
+    public double evaluate(Board board, boolean strongIsWhite) {
+        int strongKing = board.getKingSquare(strongIsWhite);
+        int weakKing = board.getKingSquare(!strongIsWhite);
+        int bishop = Long.numberOfTrailingZeros(board.getBitboard(strongIsWhite ? Piece.BISHOP : Piece.BISHOP + 6));
+
+        // a1 / h8 are dark (row + col odd). For a light bishop mirror the files -> a8 / h1 become the targets
+        if (((bishop / 8 + bishop % 8) & 1) == 0) {
+            weakKing ^= 7;
+        }
+
+        int material = strongIsWhite ? board.getMaterialScore() : -board.getMaterialScore();
+        return KNOWN_WIN + material
+                + EndgameFunction.pushClose(strongKing, board.getKingSquare(!strongIsWhite))
+                + CORNER_WEIGHT * pushToCorner(weakKing);
+    }
+
+    /**
+     * 7 on a1 / h8 down to 0 on the long light diagonal
+     */
+    private static int pushToCorner(int square) {
+        return Math.abs(square / 8 - square % 8);
+    }
+}
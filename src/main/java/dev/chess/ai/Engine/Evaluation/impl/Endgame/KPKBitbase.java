@@ -0,0 +1,164 @@
+package dev.chess.ai.Engine.Evaluation.impl.Endgame;
+
+import dev.chess.ai.Engine.Board.AttackTables;
+
+/**
+ * Win / draw for every king + pawn vs king position, generated at class load by retrograde analysis
+ * <p>
+ * Positions are normalized -> white has the pawn, pushing towards row 0, and the pawn is on files a-d
+ * (the board is mirrored for the other files). That leaves 24 pawn squares * 2 sides to move * 64 * 64 king
+ * squares = 196608 positions, stored as one bit each (1 -> white wins)
+ * <p>
+ * Generation marks the positions that are decided right away (illegal, promotion that can't be stopped,
+ * stalemate, pawn captured) then keeps sweeping the rest until nothing changes:
+ * white to move wins if any move reaches a win, black to move draws if any move reaches a draw
+ *
+ * https://www.chessprogramming.org/KPK
+ */
+public final class KPKBitbase {
+
+    private static final int PAWN_SQUARES = 24; // files a-d, rows 1-6
+    private static final int SIZE = PAWN_SQUARES * 2 * 64 * 64;
+
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+
+    // Generation states, bit flags so successors can be OR'ed together
+    private static final byte INVALID = 0;
+    private static final byte UNKNOWN = 1;
+    private static final byte DRAW = 2;
+    private static final byte WIN = 4;
+
+    private static final long[] WINS = new long[SIZE / 64];
+
+    static {
+        generate();
+    }
+
+    private KPKBitbase() {
+
+    }
+
+    /**
+     * Squares must already be normalized -> pawn is white on files a-d, rows 1-6
+     *
+     * @return true if white wins with best play
+     */
+    public static boolean isWin(boolean whiteToMove, int whiteKing, int pawn, int blackKing) {
+        int index = index(whiteToMove ? WHITE : BLACK, blackKing, whiteKing, pawn);
+        return (WINS[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static int index(int sideToMove, int blackKing, int whiteKing, int pawn) {
+        int pawnIndex = (pawn % 8) * 6 + (pawn / 8 - 1);
+        return ((pawnIndex * 2 + sideToMove) * 64 + blackKing) * 64 + whiteKing;
+    }
+
+    private static void generate() {
+        byte[] results = new byte[SIZE];
+        for (int index = 0; index < SIZE; index++) {
+            results[index] = initial(index);
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int index = 0; index < SIZE; index++) {
+                if (results[index] == UNKNOWN) {
+                    byte result = classify(results, index);
+                    if (result != UNKNOWN) {
+                        results[index] = result;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        for (int index = 0; index < SIZE; index++) {
+            if (results[index] == WIN) {
+                WINS[index >>> 6] |= 1L << index;
+            }
+        }
+    }
+
+    /**
+     * Everything that can be decided without looking at the moves after
+     */
+    private static byte initial(int index) {
+        int whiteKing = index & 63;
+        int blackKing = (index >>> 6) & 63;
+        int sideToMove = (index >>> 12) & 1;
+        int pawn = pawnSquare(index >>> 13);
+
+        if (whiteKing == blackKing || whiteKing == pawn || blackKing == pawn
+                || EndgameFunction.distance(whiteKing, blackKing) <= 1) {
+            return INVALID;
+        }
+        // black in check with white to move -> black just made an illegal move
+        if (sideToMove == WHITE && (AttackTables.PAWN[WHITE][pawn] & (1L << blackKing)) != 0) {
+            return INVALID;
+        }
+
+        if (sideToMove == WHITE && pawn / 8 == 1) {
+            int promotion = pawn - 8;
+            if (promotion != whiteKing && promotion != blackKing
+                    && (EndgameFunction.distance(blackKing, promotion) > 1
+                    || EndgameFunction.distance(whiteKing, promotion) == 1)) {
+                return WIN; // queen can't be taken
+            }
+        }
+
+        if (sideToMove == BLACK) {
+            long escapes = AttackTables.KING[blackKing] & ~(AttackTables.KING[whiteKing] | AttackTables.PAWN[WHITE][pawn]);
+            if (escapes == 0) {
+                return DRAW; // stalemate, a lone pawn can't give mate
+            }
+            if ((AttackTables.KING[blackKing] & ~AttackTables.KING[whiteKing] & (1L << pawn)) != 0) {
+                return DRAW; // takes the undefended pawn
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static byte classify(byte[] results, int index) {
+        int whiteKing = index & 63;
+        int blackKing = (index >>> 6) & 63;
+        int sideToMove = (index >>> 12) & 1;
+        int pawn = pawnSquare(index >>> 13);
+
+        int reached = 0;
+        if (sideToMove == WHITE) {
+            for (long moves = AttackTables.KING[whiteKing]; moves != 0; moves &= moves - 1) {
+                reached |= results[index(BLACK, blackKing, Long.numberOfTrailingZeros(moves), pawn)];
+            }
+
+            // promotions were handled in initial -> only pushes that stay a pawn
+            int push = pawn - 8;
+            if (pawn / 8 > 1 && push != whiteKing && push != blackKing) {
+                reached |= results[index(BLACK, blackKing, whiteKing, push)];
+
+                int doublePush = push - 8;
+                if (pawn / 8 == 6 && doublePush != whiteKing && doublePush != blackKing) {
+                    reached |= results[index(BLACK, blackKing, whiteKing, doublePush)];
+                }
+            }
+
+            if ((reached & WIN) != 0) {
+                return WIN;
+            }
+            return (reached & UNKNOWN) != 0 ? UNKNOWN : DRAW;
+        }
+
+        for (long moves = AttackTables.KING[blackKing]; moves != 0; moves &= moves - 1) {
+            reached |= results[index(WHITE, Long.numberOfTrailingZeros(moves), whiteKing, pawn)];
+        }
+        if ((reached & DRAW) != 0) {
+            return DRAW;
+        }
+        return (reached & UNKNOWN) != 0 ? UNKNOWN : WIN;
+    }
+
+    private static int pawnSquare(int pawnIndex) {
+        return (pawnIndex % 6 + 1) * 8 + pawnIndex / 6;
+    }
+}
@@ -0,0 +1,42 @@
+package dev.chess.ai.Engine.Evaluation.impl.Endgame;
+
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Simulation.Piece;
+
+/**
+ * King + pawn vs king, read from the {@link KPKBitbase}
+ * <p>
+ * A won position scores a known win plus the pawn's rank so the search keeps pushing it,
+ * everything else is a dead draw
+ */
+public class KPKEndgame implements EndgameFunction {
+
+    private static final int RANK_BONUS = 20;
+
+    @Override
+    public double evaluate(Board board, boolean strongIsWhite) {
+        int strongKing = board.getKingSquare(strongIsWhite);
+        int weakKing = board.getKingSquare(!strongIsWhite);
+        int pawn = Long.numberOfTrailingZeros(board.getBitboard(strongIsWhite ? Piece.PAWN : Piece.PAWN + 6));
+
+        // bitbase has the strong side as white on files a-d
+        if (!strongIsWhite) {
+            strongKing ^= 56;
+            weakKing ^= 56;
+            pawn ^= 56;
+        }
+        if (pawn % 8 > 3) {
+            strongKing ^= 7;
+            weakKing ^= 7;
+            pawn ^= 7;
+        }
+
+        boolean strongToMove = board.isWhiteToMove() == strongIsWhite;
+        if (!KPKBitbase.isWin(strongToMove, strongKing, pawn, weakKing)) {
+            return 0;
+        }
+
+        int rank = 7 - pawn / 8;
+        return KNOWN_WIN + board.getWeights().getMaterial(Piece.PAWN) + RANK_BONUS * rank;
+    }
+}
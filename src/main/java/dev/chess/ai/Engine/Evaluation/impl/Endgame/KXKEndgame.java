@@ -0,0 +1,24 @@
+package dev.chess.ai.Engine.Evaluation.impl.Endgame;
+
+import dev.chess.ai.Simulation.Board;
+
+/**
+ * Mating material vs a lone king (KQK, KRK)
+ * <p>
+ * The mate is always there, the problem is finding it past the search horizon -> score the
+ * lone king's distance to the edge and the distance between the kings so every step of the
+ * standard technique shows up as progress
+ *
+ * https://www.chessprogramming.org/Mop-up_Evaluation
+ */
+public class KXKEndgame implements EndgameFunction {
+
+    @Override
+    public double evaluate(Board board, boolean strongIsWhite) {
+        int strongKing = board.getKingSquare(strongIsWhite);
+        int weakKing = board.getKingSquare(!strongIsWhite);
+
+        int material = strongIsWhite ? board.getMaterialScore() : -board.getMaterialScore();
+        return KNOWN_WIN + material + EndgameFunction.pushToEdge(weakKing) + EndgameFunction.pushClose(strongKing, weakKing);
+    }
+}
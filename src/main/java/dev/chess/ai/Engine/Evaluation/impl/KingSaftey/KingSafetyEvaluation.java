@@ -1,24 +1,193 @@
 package dev.chess.ai.Engine.Evaluation.impl.KingSaftey;
 
+import dev.chess.ai.Engine.Board.AttackMap;
+import dev.chess.ai.Engine.Board.AttackTables;
+import dev.chess.ai.Engine.Evaluation.EvaluationCache;
 import dev.chess.ai.Engine.Evaluation.Evaluator;
+import dev.chess.ai.Engine.Evaluation.impl.Position.PieceSquareTables;
 import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Simulation.Piece;
+import dev.chess.ai.Util.Board.ZobristHasher;
 
 /**
  * Evaluates the safety of the king
+ * <p>
+ * Two parts:
+ * - Attack units -> enemy pieces hitting the squares around the king, read from the shared
+ *   {@link AttackMap} and turned into a score by {@link #SAFETY_TABLE} so a few attackers cost a
+ *   little and a full attack costs a lot
+ * - Shelter -> pawn shield in front of the king, enemy pawns storming it and open files next to it.
+ *   Only depends on pawns + king squares so it's cached by pawn hash ^ king keys
+ * <p>
+ * Both only matter with pieces on the board -> tapered to 0 in the endgame
  *
  * https://www.chessprogramming.org/King_Safety
  *
  */
 public class KingSafetyEvaluation implements Evaluator {
 
-    public KingSafetyEvaluation() {
+    // Attack units per king zone square hit, indexed by Piece type
+    private static final int[] ATTACK_WEIGHTS = {0, 2, 2, 3, 5, 0};
+
+    // Zone squares the attacker hits that the defender doesn't cover
+    private static final int UNDEFENDED_SQUARE_UNITS = 1;
+
+    // One attacker can't mate alone -> ignore until at least this many pieces join in
+    private static final int MIN_ATTACKERS = 2;
+
+    // Attack units -> centipawns, grows slowly then steeply then caps
+    private static final int[] SAFETY_TABLE = {
+              0,   0,   1,   2,   3,   5,   7,   9,  12,  15,
+             18,  22,  26,  30,  35,  39,  44,  50,  56,  62,
+             68,  75,  82,  85,  89,  97, 105, 113, 122, 131,
+            140, 150, 169, 180, 191, 202, 213, 225, 237, 248,
+            260, 272, 283, 295, 307, 319, 330, 342, 354, 366,
+            377, 389, 401, 412, 424, 436, 448, 459, 471, 483,
+            494, 500, 500, 500, 500, 500, 500, 500, 500, 500,
+            500, 500, 500, 500, 500, 500, 500, 500, 500, 500,
+            500, 500, 500, 500, 500, 500, 500, 500, 500, 500,
+            500, 500, 500, 500, 500, 500, 500, 500, 500, 500
+    };
+
+    // Own pawn on a shield file by distance in front of the king, 0 -> no pawn
+    private static final int[] SHIELD_PENALTY = {36, 0, 12, 24, 32, 32, 32, 32};
+
+    // Enemy pawn on a shield file by distance in front of the king
+    private static final int[] STORM_PENALTY = {0, 0, 40, 25, 10, 5, 0, 0};
+    private static final int[] BLOCKED_STORM_PENALTY = {0, 0, 15, 5, 0, 0, 0, 0}; // stuck on our shield pawn
+
+    private static final int OPEN_FILE_PENALTY = 20;
+    private static final int SEMI_OPEN_FILE_PENALTY = 10;
+
+    private static final int SHELTER_CACHE_SIZE = 1 << 14;
+
+    // Top of the safety table (only one side's attack can count fully against the other's) plus a wrecked
+    // shelter -> 500 + 3 * (36 + 40 + 20) = 788. Clamped to it as well so the lazy margin always holds
+    private static final double MAX_MAGNITUDE = 800;
+
+    private final EvaluationCache shelterCache;
 
+    public KingSafetyEvaluation() {
+        this.shelterCache = new EvaluationCache(SHELTER_CACHE_SIZE);
     }
 
     @Override
     public double evaluate(Board board) {
-        return 0;
+        AttackMap attacks = board.getAttackMap();
+
+        int midgame = attackPenalty(attacks, AttackMap.WHITE) - attackPenalty(attacks, AttackMap.BLACK);
+        midgame += (int) shelter(board);
+
+        return Evaluator.clamp(PieceSquareTables.taper(midgame, 0, board.getPhase()), MAX_MAGNITUDE);
+    }
+
+    @Override
+    public int getCost() {
+        return COST_EXPENSIVE;
+    }
+
+    @Override
+    public double getMaxMagnitude() {
+        return MAX_MAGNITUDE;
     }
 
+    /**
+     * @param attacker side attacking the enemy king
+     * @return score for the attacker
+     */
+    private int attackPenalty(AttackMap attacks, int attacker) {
+        int attackers = 0;
+        int units = 0;
+        for (int type = Piece.KNIGHT; type <= Piece.QUEEN; type++) {
+            attackers += attacks.getKingAttackers(attacker, type);
+            units += ATTACK_WEIGHTS[type] * attacks.getKingZoneHits(attacker, type);
+        }
+        if (attackers < MIN_ATTACKERS) {
+            return 0;
+        }
 
+        int defender = attacker ^ 1;
+        long undefended = attacks.getKingZone(defender) & attacks.getAttacks(attacker) & ~attacks.getAttacks(defender);
+        units += UNDEFENDED_SQUARE_UNITS * Long.bitCount(undefended);
+
+        return SAFETY_TABLE[Math.min(units, SAFETY_TABLE.length - 1)];
+    }
+
+    /**
+     * @return white shelter - black shelter, cached by pawns + king squares
+     */
+    private double shelter(Board board) {
+        int whiteKing = board.getKingSquare(true);
+        int blackKing = board.getKingSquare(false);
+        if (whiteKing < 0 || blackKing < 0) {
+            return 0;
+        }
+
+        long key = board.getPawnHash()
+                ^ ZobristHasher.getPieceKey(whiteKing, Piece.KING)
+                ^ ZobristHasher.getPieceKey(blackKing, Piece.KING + 6);
+        if (shelterCache.contains(key)) {
+            return shelterCache.getScore(key);
+        }
+
+        long whitePawns = board.getBitboard(Piece.PAWN);
+        long blackPawns = board.getBitboard(Piece.PAWN + 6);
+        double score = shelterPenalty(blackPawns, whitePawns, blackKing, false)
+                - shelterPenalty(whitePawns, blackPawns, whiteKing, true);
+
+        shelterCache.store(key, score);
+        return score;
+    }
+
+    /**
+     * Shield, storm and open files on the king file and both neighbours.
+     * A king on the edge looks at the b / g file group so there are always three files
+     */
+    private static int shelterPenalty(long ownPawns, long enemyPawns, int kingSquare, boolean isWhite) {
+        int kingRow = kingSquare / 8;
+        int center = Math.max(1, Math.min(6, kingSquare % 8));
+
+        // rows in front of the king -> towards row 0 for white
+        long inFront;
+        if (isWhite) {
+            inFront = (1L << (kingRow * 8)) - 1;
+        } else {
+            inFront = kingRow == 7 ? 0 : -1L << ((kingRow + 1) * 8);
+        }
+
+        int penalty = 0;
+        for (int file = center - 1; file <= center + 1; file++) {
+            long fileMask = AttackTables.FILES[file];
+            long own = ownPawns & fileMask & inFront;
+            long enemy = enemyPawns & fileMask & inFront;
+
+            int ownDistance = own == 0 ? 0 : distance(own, kingRow, isWhite);
+            penalty += SHIELD_PENALTY[ownDistance];
+
+            if (enemy != 0) {
+                int enemyDistance = distance(enemy, kingRow, isWhite);
+                boolean blocked = ownDistance != 0 && ownDistance == enemyDistance - 1;
+                penalty += blocked ? BLOCKED_STORM_PENALTY[enemyDistance] : STORM_PENALTY[enemyDistance];
+            }
+
+            if (((ownPawns | enemyPawns) & fileMask) == 0) {
+                penalty += OPEN_FILE_PENALTY;
+            } else if ((ownPawns & fileMask) == 0) {
+                penalty += SEMI_OPEN_FILE_PENALTY;
+            }
+        }
+        return penalty;
+    }
+
+    // Rows between the king and the nearest pawn in front of it
+    private static int distance(long pawns, int kingRow, boolean isWhite) {
+        if (isWhite) {
+            return kingRow - (63 - Long.numberOfLeadingZeros(pawns)) / 8;
+        }
+        return Long.numberOfTrailingZeros(pawns) / 8 - kingRow;
+    }
+
+    public EvaluationCache getShelterCache() {
+        return shelterCache;
+    }
 }
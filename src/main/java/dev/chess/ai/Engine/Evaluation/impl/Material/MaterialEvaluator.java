@@ -1,5 +1,6 @@
 package dev.chess.ai.Engine.Evaluation.impl.Material;
 
+import dev.chess.ai.Engine.Evaluation.EvaluationWeights;
 import dev.chess.ai.Engine.Evaluation.Evaluator;
 import dev.chess.ai.Simulation.Board;
 import dev.chess.ai.Simulation.Piece;
@@ -26,22 +27,12 @@ public class MaterialEvaluator implements Evaluator {
     public static final int QUEEN_VALUE = 900;
     public static final int KING_VALUE = 20000;
 
+    /**
+     * O(1) -> {@link Board} keeps the material balance updated as pieces are added and removed
+     */
     @Override
     public double evaluate(Board board) {
-        double score = 0;
-
-        // O(n^2)
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board.getPiece(row, col);
-                if (piece == null) continue;
-
-                double value = getPieceValue(piece);
-                score += piece.isWhite() ? value : -value;
-            }
-        }
-
-        return score;
+        return board.getMaterialScore();
     }
 
     /**
@@ -49,17 +40,21 @@ public class MaterialEvaluator implements Evaluator {
      */
     public int getPieceValue(Piece piece) {
         if (piece == null) return 0;
+        return getValue(piece.getType());
+    }
 
-        char symbol = Character.toLowerCase(piece.getSymbol());
-        switch (symbol) {
-            case 'p': return PAWN_VALUE;
-            case 'n': return KNIGHT_VALUE;
-            case 'b': return BISHOP_VALUE;
-            case 'r': return ROOK_VALUE;
-            case 'q': return QUEEN_VALUE;
-            case 'k': return KING_VALUE;
-            default: return 0;
-        }
+    /**
+     * @return material value of a {@link Piece#getType()} in the live {@link EvaluationWeights}
+     */
+    public static int getValue(int pieceType) {
+        return EvaluationWeights.current().getMaterial(pieceType);
+    }
+
+    /**
+     * @return the constants above by [{@link Piece#getType()}] -> a weights file can override them
+     */
+    public static int[] getDefaultValues() {
+        return new int[]{PAWN_VALUE, KNIGHT_VALUE, BISHOP_VALUE, ROOK_VALUE, QUEEN_VALUE, KING_VALUE};
     }
 
 
@@ -0,0 +1,112 @@
+package dev.chess.ai.Engine.Evaluation.impl.Mobility;
+
+import dev.chess.ai.Engine.Board.AttackMap;
+import dev.chess.ai.Engine.Evaluation.EvaluationKernels;
+import dev.chess.ai.Engine.Evaluation.EvaluationWeights;
+import dev.chess.ai.Engine.Evaluation.Evaluator;
+import dev.chess.ai.Engine.Evaluation.impl.Position.PieceSquareTables;
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Simulation.Piece;
+
+/**
+ * Rewards pieces for the number of safe squares they can reach
+ * <p>
+ * Counts come from the shared {@link AttackMap} (same pass king safety uses) as a histogram per piece type,
+ * so the score is one dot product of that histogram with the per-count tables below.
+ * A trapped piece is punished hard, past a handful of squares each extra one is worth less
+ * <p>
+ * Sliders matter more in the endgame when the board opens up -> separate midgame / endgame tables, tapered by phase
+ *
+ * https://www.chessprogramming.org/Mobility
+ */
+public class MobilityEvaluator implements Evaluator {
+
+    // [Piece type][safe squares] centipawns
+    // Literal tables are the defaults -> a weights file can override them (MOBILITY_MG / MOBILITY_EG in EvaluationWeights)
+    private static final int[][] MIDGAME = new int[6][];
+    private static final int[][] ENDGAME = new int[6][];
+
+    static {
+        MIDGAME[Piece.KNIGHT] = new int[]{-30, -20, -6, -2, 2, 6, 10, 14, 16};
+        ENDGAME[Piece.KNIGHT] = new int[]{-40, -28, -15, -8, 2, 6, 8, 10, 12};
+
+        MIDGAME[Piece.BISHOP] = new int[]{-24, -10, 4, 9, 13, 18, 22, 24, 27, 29, 31, 33, 34, 36};
+        ENDGAME[Piece.BISHOP] = new int[]{-30, -12, -4, 4, 10, 14, 18, 21, 24, 26, 28, 29, 30, 31};
+
+        MIDGAME[Piece.ROOK] = new int[]{-28, -12, -4, -2, 0, 4, 8, 12, 16, 18, 20, 22, 23, 24, 26};
+        ENDGAME[Piece.ROOK] = new int[]{-36, -12, 2, 10, 16, 21, 26, 30, 34, 37, 40, 42, 44, 46, 48};
+
+        MIDGAME[Piece.QUEEN] = new int[]{
+                -20, -12, -4, -2, 2, 4, 6, 8, 10, 12, 14, 15, 16, 17,
+                18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31};
+        ENDGAME[Piece.QUEEN] = new int[]{
+                -24, -14, -6, 0, 4, 8, 12, 16, 19, 22, 25, 28, 30, 32,
+                34, 36, 38, 39, 40, 41, 42, 43, 44, 45, 46, 47, 48, 49};
+    }
+
+    // One side fully active and the other completely boxed in.
+    // Hard cap (extra queens, tuned tables can go past it) -> the score gets clamped so the lazy margin holds
+    private static final double MAX_MAGNITUDE = 250;
+
+    private final EvaluationKernels kernels;
+
+    public MobilityEvaluator() {
+        this.kernels = EvaluationKernels.get();
+    }
+
+    @Override
+    public double evaluate(Board board) {
+        AttackMap attacks = board.getAttackMap();
+        EvaluationWeights weights = board.getWeights();
+
+        int midgame = 0;
+        int endgame = 0;
+        for (int type = Piece.KNIGHT; type <= Piece.QUEEN; type++) {
+            int[] midgameTable = weights.getMobilityMidgame(type);
+            int[] endgameTable = weights.getMobilityEndgame(type);
+            int length = midgameTable.length;
+            int[] white = attacks.getMobility(AttackMap.WHITE, type);
+            int[] black = attacks.getMobility(AttackMap.BLACK, type);
+
+            midgame += kernels.dot(white, midgameTable, 0, length) - kernels.dot(black, midgameTable, 0, length);
+            endgame += kernels.dot(white, endgameTable, 0, length) - kernels.dot(black, endgameTable, 0, length);
+        }
+
+        return Evaluator.clamp(PieceSquareTables.taper(midgame, endgame, board.getPhase()), MAX_MAGNITUDE);
+    }
+
+    @Override
+    public int getCost() {
+        return COST_EXPENSIVE;
+    }
+
+    @Override
+    public double getMaxMagnitude() {
+        return MAX_MAGNITUDE;
+    }
+
+    /**
+     * @return copy of the hand entered table, empty for pawns and kings
+     */
+    public static int[] getDefaultTable(int pieceType, boolean endgame) {
+        int[] table = endgame ? ENDGAME[pieceType] : MIDGAME[pieceType];
+        return table == null ? new int[0] : table.clone();
+    }
+
+    /**
+     * Safe square histograms for tuning, laid out side by type by count -> [side][type - KNIGHT][count]
+     *
+     * @param out at least 2 * 4 * (MAX_MOBILITY + 1) long
+     */
+    public static void getMobilityCounts(Board board, int[] out) {
+        AttackMap attacks = board.getAttackMap();
+        int stride = AttackMap.MAX_MOBILITY + 1;
+        int offset = 0;
+        for (int side = 0; side < 2; side++) {
+            for (int type = Piece.KNIGHT; type <= Piece.QUEEN; type++) {
+                System.arraycopy(attacks.getMobility(side, type), 0, out, offset, stride);
+                offset += stride;
+            }
+        }
+    }
+}
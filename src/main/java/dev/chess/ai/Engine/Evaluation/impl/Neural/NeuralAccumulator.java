@@ -0,0 +1,90 @@
+package dev.chess.ai.Engine.Evaluation.impl.Neural;
+
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Simulation.Piece;
+
+/**
+ * First layer output for both perspectives, kept up to date by {@link Board} as pieces are added and removed
+ * <p>
+ * A normal move only touches 2-3 features so it's a couple of N-wide adds/subtracts instead of
+ * recomputing from all 30ish pieces. When a king moves every feature of that side changes
+ * (they're indexed by king square) -> that perspective is flagged dirty and rebuilt on the next evaluation
+ * <p>
+ * https://www.chessprogramming.org/NNUE#Incremental_Update
+ */
+public class NeuralAccumulator {
+
+    private final NeuralNetwork network;
+    final short[][] values; // [perspective][i], 0 -> white, 1 -> black
+    private final boolean[] dirty = {true, true};
+
+    NeuralAccumulator(NeuralNetwork network) {
+        this.network = network;
+        this.values = new short[2][network.accumulatorSize];
+    }
+
+    /**
+     * Called by the board for every piece placed (sign 1) or lifted (sign -1)
+     */
+    public void update(Board board, int row, int col, Piece piece, int sign) {
+        if (piece.getType() == Piece.KING) {
+            dirty[piece.isWhite() ? 0 : 1] = true;
+            return;
+        }
+
+        int square = row * 8 + col;
+        int size = network.accumulatorSize;
+        for (int perspective = 0; perspective < 2; perspective++) {
+            if (dirty[perspective]) continue;
+
+            int kingSquare = board.getKingSquare(perspective == 0);
+            int offset = NeuralNetwork.featureIndex(perspective, kingSquare, piece, square) * size;
+            if (sign > 0) {
+                network.kernels.add(values[perspective], network.featureWeights, offset, size);
+            } else {
+                network.kernels.subtract(values[perspective], network.featureWeights, offset, size);
+            }
+        }
+    }
+
+    /**
+     * Rebuild any dirty perspective from the board
+     */
+    void refresh(Board board) {
+        for (int perspective = 0; perspective < 2; perspective++) {
+            if (dirty[perspective]) {
+                refresh(board, perspective);
+            }
+        }
+    }
+
+    private void refresh(Board board, int perspective) {
+        short[] acc = values[perspective];
+        int size = network.accumulatorSize;
+        System.arraycopy(network.featureBiases, 0, acc, 0, size);
+
+        int kingSquare = board.getKingSquare(perspective == 0);
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board.getPiece(row, col);
+                if (piece == null || piece.getType() == Piece.KING) continue;
+
+                int offset = NeuralNetwork.featureIndex(perspective, kingSquare, piece, row * 8 + col) * size;
+                network.kernels.add(acc, network.featureWeights, offset, size);
+            }
+        }
+        dirty[perspective] = false;
+    }
+
+    /**
+     * Board was rebuilt (reset / clear) -> start over
+     */
+    public void invalidate() {
+        dirty[0] = true;
+        dirty[1] = true;
+    }
+
+    NeuralNetwork getNetwork() {
+        return network;
+    }
+}
@@ -0,0 +1,52 @@
+package dev.chess.ai.Engine.Evaluation.impl.Neural;
+
+import dev.chess.ai.Engine.Evaluation.Evaluator;
+import dev.chess.ai.Simulation.Board;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Evaluates with a {@link NeuralNetwork} instead of hand written terms
+ * <p>
+ * The first time a board is evaluated an accumulator is attached to it, after that the
+ * board keeps it updated through make/unmake and evaluating is just the small dense layers
+ */
+public class NeuralEvaluator implements Evaluator {
+
+    private final NeuralNetwork network;
+    private final int[][] scratch;
+
+    public NeuralEvaluator(NeuralNetwork network) {
+        this.network = network;
+        this.scratch = network.createScratch();
+    }
+
+    public NeuralEvaluator(Path weights) throws IOException {
+        this(NeuralNetwork.load(weights));
+    }
+
+    @Override
+    public double evaluate(Board board) {
+        NeuralAccumulator accumulator = board.getNeuralAccumulator();
+        if (accumulator == null || accumulator.getNetwork() != network) {
+            accumulator = new NeuralAccumulator(network);
+            board.setNeuralAccumulator(accumulator);
+        }
+        accumulator.refresh(board);
+
+        // network scores for the side to move -> flip to white positive like every other evaluator
+        int score = network.forward(accumulator, board.isWhiteToMove(), scratch);
+        return board.isWhiteToMove() ? score : -score;
+    }
+
+    // same class, different network file -> different scores
+    @Override
+    public long getFingerprint() {
+        return Evaluator.super.getFingerprint() * 31 + network.getChecksum();
+    }
+
+    public NeuralNetwork getNetwork() {
+        return network;
+    }
+}
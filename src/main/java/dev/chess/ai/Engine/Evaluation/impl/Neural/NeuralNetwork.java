@@ -0,0 +1,194 @@
+package dev.chess.ai.Engine.Evaluation.impl.Neural;
+
+import dev.chess.ai.Engine.Evaluation.EvaluationKernels;
+import dev.chess.ai.Simulation.Piece;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Small quantized HalfKP network
+ * <p>
+ * Input features are (own king square, non-king piece, square) seen from each side, so there are
+ * two accumulators -> one per perspective. Black's view is mirrored vertically so both sides
+ * look at the board "from the bottom". Layers:
+ * <pre>
+ * 2 x 40960 sparse inputs -> 2 x N accumulator (int16, updated incrementally by the board)
+ *   -> clipped ReLU, side to move first -> 2N
+ *   -> L1 (int8 weights) -> clipped ReLU -> L2 (int8 weights) -> clipped ReLU -> 1
+ * </pre>
+ * Weights file (big endian, {@link DataInputStream}):
+ * magic, version, N, L1, L2, then
+ * feature biases[N] (int16), feature weights[40960 * N] (int16),
+ * l1 weights[L1 * 2N] (int8), l1 biases[L1] (int32),
+ * l2 weights[L2 * L1] (int8), l2 biases[L2] (int32),
+ * output weights[L2] (int8), output bias (int32)
+ * <p>
+ * https://www.chessprogramming.org/NNUE
+ * https://github.com/official-stockfish/nnue-pytorch/blob/master/docs/nnue.md
+ */
+public class NeuralNetwork {
+
+    private static final int MAGIC = 0x4E4E5545; // "NNUE"
+    private static final int VERSION = 1;
+
+    // 10 non-king piece kinds (5 types x own/their) x 64 squares, per king square
+    public static final int FEATURES_PER_KING = 10 * 64;
+    public static final int FEATURE_COUNT = 64 * FEATURES_PER_KING;
+
+    // Quantization -> activations live in [0, 127], hidden layers shift back down by 2^6
+    private static final int ACTIVATION_MAX = 127;
+    private static final int WEIGHT_SHIFT = 6;
+    private static final int OUTPUT_SCALE = 16; // output / 16 -> centipawns
+
+    final int accumulatorSize;
+    private final int l1Size;
+    private final int l2Size;
+
+    final short[] featureBiases;
+    final short[] featureWeights; // [feature * accumulatorSize + i]
+    private final int[] l1Weights;
+    private final int[] l1Biases;
+    private final int[] l2Weights;
+    private final int[] l2Biases;
+    private final int[] outputWeights;
+    private final int outputBias;
+
+    final EvaluationKernels kernels;
+
+    // Hash of the sizes and every weight -> tells two network files apart
+    private final int checksum;
+
+    private NeuralNetwork(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a network file (bad magic/version)");
+        }
+        this.accumulatorSize = in.readInt();
+        this.l1Size = in.readInt();
+        this.l2Size = in.readInt();
+        if (accumulatorSize <= 0 || l1Size <= 0 || l2Size <= 0) {
+            throw new IOException("Bad layer sizes: " + accumulatorSize + "/" + l1Size + "/" + l2Size);
+        }
+
+        this.featureBiases = readShorts(in, accumulatorSize);
+        this.featureWeights = readShorts(in, FEATURE_COUNT * accumulatorSize);
+        this.l1Weights = readBytes(in, l1Size * 2 * accumulatorSize);
+        this.l1Biases = readInts(in, l1Size);
+        this.l2Weights = readBytes(in, l2Size * l1Size);
+        this.l2Biases = readInts(in, l2Size);
+        this.outputWeights = readBytes(in, l2Size);
+        this.outputBias = in.readInt();
+
+        this.checksum = Arrays.hashCode(new int[]{
+                accumulatorSize, l1Size, l2Size,
+                Arrays.hashCode(featureBiases), Arrays.hashCode(featureWeights),
+                Arrays.hashCode(l1Weights), Arrays.hashCode(l1Biases),
+                Arrays.hashCode(l2Weights), Arrays.hashCode(l2Biases),
+                Arrays.hashCode(outputWeights), outputBias
+        });
+
+        this.kernels = EvaluationKernels.get();
+    }
+
+    public static NeuralNetwork load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            return new NeuralNetwork(in);
+        }
+    }
+
+    /**
+     * Feature row for a piece seen from one side
+     *
+     * @param perspective 0 -> white, 1 -> black
+     * @param kingSquare that side's king, row * 8 + col
+     * @param piece non-king piece
+     * @param square row * 8 + col
+     */
+    static int featureIndex(int perspective, int kingSquare, Piece piece, int square) {
+        boolean own = piece.isWhite() == (perspective == 0);
+        int kind = piece.getType() * 2 + (own ? 0 : 1);
+        return orient(perspective, kingSquare) * FEATURES_PER_KING + kind * 64 + orient(perspective, square);
+    }
+
+    // black sees the board flipped vertically
+    private static int orient(int perspective, int square) {
+        return perspective == 0 ? square : square ^ 56;
+    }
+
+    /**
+     * Forward pass from the accumulators
+     *
+     * @param scratch buffers from {@link #createScratch()}, reused so evaluation doesn't allocate
+     * @return centipawns from the side to move's point of view
+     */
+    int forward(NeuralAccumulator accumulator, boolean whiteToMove, int[][] scratch) {
+        int[] input = scratch[0];
+        int[] hidden1 = scratch[1];
+        int[] hidden2 = scratch[2];
+
+        short[] us = accumulator.values[whiteToMove ? 0 : 1];
+        short[] them = accumulator.values[whiteToMove ? 1 : 0];
+        for (int i = 0; i < accumulatorSize; i++) {
+            input[i] = clamp(us[i]);
+            input[accumulatorSize + i] = clamp(them[i]);
+        }
+
+        kernels.affine(input, 2 * accumulatorSize, l1Weights, l1Biases, hidden1, l1Size);
+        for (int i = 0; i < l1Size; i++) {
+            hidden1[i] = clamp(hidden1[i] >> WEIGHT_SHIFT);
+        }
+
+        kernels.affine(hidden1, l1Size, l2Weights, l2Biases, hidden2, l2Size);
+        int output = outputBias;
+        for (int i = 0; i < l2Size; i++) {
+            output += clamp(hidden2[i] >> WEIGHT_SHIFT) * outputWeights[i];
+        }
+
+        return output / OUTPUT_SCALE;
+    }
+
+    int[][] createScratch() {
+        return new int[][]{new int[2 * accumulatorSize], new int[l1Size], new int[l2Size]};
+    }
+
+    public String getKernelName() {
+        return kernels.getName();
+    }
+
+    public int getChecksum() {
+        return checksum;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(ACTIVATION_MAX, value));
+    }
+
+    private static short[] readShorts(DataInputStream in, int count) throws IOException {
+        short[] values = new short[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readShort();
+        }
+        return values;
+    }
+
+    // int8 on disk, widened so the affine kernels work on ints
+    private static int[] readBytes(DataInputStream in, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readByte();
+        }
+        return values;
+    }
+
+    private static int[] readInts(DataInputStream in, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+}
@@ -1,158 +1,280 @@
 package dev.chess.ai.Engine.Evaluation.impl.Position;
 
+import dev.chess.ai.Engine.Board.AttackTables;
+import dev.chess.ai.Engine.Evaluation.EvaluationWeights;
 import dev.chess.ai.Engine.Evaluation.Evaluator;
+import dev.chess.ai.Engine.Table.PawnHashEntry;
+import dev.chess.ai.Engine.Table.PawnHashTable;
 import dev.chess.ai.Simulation.Board;
-import dev.chess.ai.Simulation.Impl.Pawn;
 import dev.chess.ai.Simulation.Piece;
 
+import java.util.Arrays;
+
 // Determines if a pawn can passed uncontested to become a queen.
-// Only do this in late game to improve calculations
+// Passed pawns are worth more the fewer pieces are left -> the bonus is tapered by game phase
+//
+// Also scores the rest of the pawn structure (isolated / doubled / backward / connected).
+// Everything works on the pawn bitboards from the Board -> every test is one AND against a precomputed mask
+// and it only depends on pawn placement so it's cached in a {@link PawnHashTable}
+//
+// https://www.chessprogramming.org/Pawn_Structure
 public class PawnPassEvaluator implements Evaluator {
 
     private static final double PASSED_PAWN_BASE_VALUE = 50.0;
-    private static final int TOTAL_PIECES_THRESHOLD = 16;
     private static final double PROTECTED_PAWN_BONUS = 1.3;  // 30% bonus
     private static final double CENTER_FILE_BONUS = 1.2;     // 20% bonus
     private static final int D_FILE = 3;
     private static final int E_FILE = 4;
 
-    public PawnPassEvaluator() {
+    // Structure penalties (centipawns, per pawn) -> defaults, the live values are in EvaluationWeights
+    public static final int DEFAULT_ISOLATED_PENALTY = 15;
+    public static final int DEFAULT_DOUBLED_PENALTY = 12;
+    public static final int DEFAULT_BACKWARD_PENALTY = 10;
 
-    }
+    // Pawn defended by or standing next to a friendly pawn, by rank from its own side (1 = start rank)
+    private static final int[] CONNECTED_PAWN_BONUS = {0, 3, 5, 8, 14, 22, 35, 0};
 
-    @Override
-    public double evaluate(Board board) {
-        if (!shouldStartSearching(board)) {
-            return 0;
+    // Passed pawn bonus by rank from its own side -> doubles every two ranks
+    private static final int[] PASSED_PAWN_BONUS = new int[8];
+
+    // Terms of one pawn structure, white - black. The score is these times the weights above,
+    // exposed so the tuner can fit the weights -> see collectTerms
+    public static final int TERM_ISOLATED = 0;   // pawn count
+    public static final int TERM_BACKWARD = 1;   // pawn count
+    public static final int TERM_DOUBLED = 2;    // (n - 1) / n per pawn on a file with n pawns
+    public static final int TERM_CONNECTED = 3;  // + rank, pawn count
+    public static final int TERM_PASSED = 11;    // + rank, sum of the protected / center multipliers
+    public static final int TERM_COUNT = 19;
+
+    // [0 white, 1 black][square]
+    private static final long[][] FRONT_SPAN = new long[2][64];   // same file, in front
+    private static final long[][] PASSED_MASK = new long[2][64];  // own file + adjacent files, in front
+    private static final long[][] ATTACK_SPAN = new long[2][64];  // adjacent files, in front
+    private static final long[][] LEVEL_OR_BEHIND = new long[2][8]; // [side][row]
+    private static final long[] ADJACENT_FILES = new long[8];
+
+    static {
+        for (int rank = 1; rank < 7; rank++) {
+            PASSED_PAWN_BONUS[rank] = (int) (PASSED_PAWN_BASE_VALUE * Math.pow(2.0, rank / 2.0));
         }
 
-        double score = 0;
+        for (int col = 0; col < 8; col++) {
+            ADJACENT_FILES[col] = (col > 0 ? AttackTables.FILES[col - 1] : 0)
+                    | (col < 7 ? AttackTables.FILES[col + 1] : 0);
+        }
 
-        Piece[][] grid = board.getPieces();
         for (int row = 0; row < 8; row++) {
+            // white pushes towards row 0
+            long whiteInFront = (1L << (row * 8)) - 1;
+            long blackInFront = row == 7 ? 0 : -1L << ((row + 1) * 8);
+            LEVEL_OR_BEHIND[0][row] = ~whiteInFront;
+            LEVEL_OR_BEHIND[1][row] = ~blackInFront;
+
             for (int col = 0; col < 8; col++) {
-                Piece piece = grid[row][col];
+                int square = row * 8 + col;
+                long file = AttackTables.FILES[col];
 
-                if (piece instanceof Pawn) {
-                    double pawnScore = evaluatePawn(grid, row, col, piece.isWhite());
-                    score += piece.isWhite() ? pawnScore : -pawnScore;
-                }
+                FRONT_SPAN[0][square] = file & whiteInFront;
+                FRONT_SPAN[1][square] = file & blackInFront;
+                ATTACK_SPAN[0][square] = ADJACENT_FILES[col] & whiteInFront;
+                ATTACK_SPAN[1][square] = ADJACENT_FILES[col] & blackInFront;
+                PASSED_MASK[0][square] = FRONT_SPAN[0][square] | ATTACK_SPAN[0][square];
+                PASSED_MASK[1][square] = FRONT_SPAN[1][square] | ATTACK_SPAN[1][square];
             }
         }
+    }
+
+    private static final int PAWN_TABLE_SIZE = 16384;
 
-        return score;
+    // Two protected passers on the 6th / 7th in a pawn ending -> past that the search sees the promotion anyway.
+    // Hard cap, the score gets clamped to it so the lazy margin holds whatever the weights are
+    private static final double MAX_MAGNITUDE = 800;
+
+    private final PawnHashTable pawnTable;
+    private final double[] terms = new double[TERM_COUNT];
+
+    // Weights the cached entries were scored with -> a new snapshot empties the table
+    private EvaluationWeights weights;
+
+    public PawnPassEvaluator() {
+        this.pawnTable = new PawnHashTable(PAWN_TABLE_SIZE);
     }
 
-    private double evaluatePawn(Piece[][] grid, int row, int col, boolean isWhite) {
-        if (!isPassedPawn(grid, row, col, isWhite)) {
-            return 0;
-        }
+    @Override
+    public double evaluate(Board board) {
+        PawnHashEntry entry = getPawnEntry(board);
 
-        int distanceToPromotion = isWhite ? row : (7 - row);
+        // O(1) phase from the board -> no bonus with all pieces on, full bonus in a pawn endgame
+        double score = entry.structureScore + PieceSquareTables.taper(0, entry.passedScore, board.getPhase());
+        return Evaluator.clamp(score, MAX_MAGNITUDE);
+    }
 
-        // Gradient by how close they are to getting to the end of the board
-        double distanceMultiplier = Math.pow(2.0, (7 - distanceToPromotion) / 2.0);
+    @Override
+    public int getCost() {
+        return COST_MEDIUM; // pawn hash probe, full pass only on a miss
+    }
 
-        double score = PASSED_PAWN_BASE_VALUE * distanceMultiplier;
+    @Override
+    public double getMaxMagnitude() {
+        return MAX_MAGNITUDE;
+    }
 
-        if (isProtectedByPawn(grid, row, col, isWhite)) {
-            score *= PROTECTED_PAWN_BONUS;
+    /**
+     * Cached pawn structure for the current position -> computed on a miss
+     */
+    public PawnHashEntry getPawnEntry(Board board) {
+        if (board.getWeights() != weights) {
+            weights = board.getWeights();
+            pawnTable.clear();
         }
 
-        if (col >= D_FILE && col <= E_FILE) {
-            score *= CENTER_FILE_BONUS;
+        long pawnHash = board.getPawnHash();
+        PawnHashEntry entry = pawnTable.probe(pawnHash);
+        if (entry == null) {
+            entry = pawnTable.replace(pawnHash);
+            analyzePawns(board.getBitboard(Piece.PAWN), board.getBitboard(Piece.PAWN + 6), entry, terms);
+            score(entry, terms, weights);
         }
+        return entry;
+    }
 
-        return score;
+    public PawnHashTable getPawnTable() {
+        return pawnTable;
     }
 
     /**
-     * Check if a pawn has no enemy pawns blocking its path for promotion
+     * Structure terms for tuning, white - black
      *
-     * @param grid
-     * @param row
-     * @param col
-     * @param isWhite
-     * @return
+     * @param terms at least {@link #TERM_COUNT} long, indexed by the TERM_ constants
      */
-    // O(3 × R) where R = rows to check (worst case 7) = O(21) = O(1) constant
-    //
-    private boolean isPassedPawn(Piece[][] grid, int row, int col, boolean isWhite) {
-        int direction = isWhite ? -1 : 1;
-        int endRow = isWhite ? 0 : 7;
-
-        for (int fileOffset = -1; fileOffset <= 1; fileOffset++) {
-            int checkCol = col + fileOffset;
-            if (checkCol < 0 || checkCol >= 8) {
-                continue;
-            }
-
-            for (int checkRow = row + direction;
-                 isWhite ? (checkRow >= endRow) : (checkRow <= endRow);
-                 checkRow += direction) {
+    public static void collectTerms(long whitePawns, long blackPawns, double[] terms) {
+        analyzePawns(whitePawns, blackPawns, new PawnHashEntry(), terms);
+    }
 
-                Piece piece = grid[checkRow][checkCol];
-                if (piece instanceof Pawn && piece.isWhite() != isWhite) {
-                    return false;
-                }
-            }
-        }
+    public static int[] getDefaultConnectedBonus() {
+        return CONNECTED_PAWN_BONUS.clone();
+    }
 
-        return true;
+    public static int[] getDefaultPassedBonus() {
+        return PASSED_PAWN_BONUS.clone();
     }
 
     /**
-     * Check if pawn is protected by a friendly pawn on adjacent file
-     * @param grid
-     * @param row
-     * @param col
-     * @param isWhite
-     * @return
+     * Full pawn structure pass -> fills the terms and the bitboards of the entry. Only runs on a pawn hash miss
      */
-    private boolean isProtectedByPawn(Piece[][] grid, int row, int col, boolean isWhite) {
-        int protectorRow = isWhite ? row + 1 : row - 1;
-        if (protectorRow < 0 || protectorRow >= 8) {
-            return false;
-        }
+    private static void analyzePawns(long whitePawns, long blackPawns, PawnHashEntry entry, double[] terms) {
+        long whiteAttacks = AttackTables.pawnAttacks(whitePawns, 0);
+        long blackAttacks = AttackTables.pawnAttacks(blackPawns, 1);
+
+        Arrays.fill(terms, 0, TERM_COUNT, 0);
+        long whitePassed = 0, blackPassed = 0;
+        long whiteSpan = 0, blackSpan = 0;
 
-        for (int colOffset : new int[]{-1, 1}) {
-            int protectorCol = col + colOffset;
+        for (int side = 0; side < 2; side++) {
+            long own = side == 0 ? whitePawns : blackPawns;
+            long enemy = side == 0 ? blackPawns : whitePawns;
+            long ownAttacks = side == 0 ? whiteAttacks : blackAttacks;
+            long enemyAttacks = side == 0 ? blackAttacks : whiteAttacks;
+            int sign = side == 0 ? 1 : -1;
 
-            if (protectorCol >= 0 && protectorCol < 8) {
-                Piece piece = grid[protectorRow][protectorCol];
-                if (piece instanceof Pawn && piece.isWhite() == isWhite) {
-                    return true;
+            long span = 0;
+            long passers = 0;
+
+            for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+                int square = Long.numberOfTrailingZeros(pawns);
+                int row = square / 8;
+                int col = square % 8;
+                int rank = side == 0 ? 7 - row : row;
+                long bit = 1L << square;
+
+                span |= ATTACK_SPAN[side][square];
+
+                if ((own & ADJACENT_FILES[col]) == 0) {
+                    terms[TERM_ISOLATED] += sign;
+                } else if (isBackward(own, enemyAttacks, side, square)) {
+                    terms[TERM_BACKWARD] += sign;
                 }
-            }
-        }
 
-        return false;
-    }
+                // every pawn on a doubled file takes a share -> a file with n pawns costs (n - 1) penalties
+                int onFile = Long.bitCount(own & AttackTables.FILES[col]);
+                if (onFile > 1) {
+                    terms[TERM_DOUBLED] += sign * (onFile - 1) / (double) onFile;
+                }
 
-    // Don't search at the start of the game. this is stupid and wastes computation power
-    // Time: O(64) -> scans entire board to count pieces
-    // TODO: This can be optimized somehow... I think...
-    private boolean shouldStartSearching(Board board) {
-        int count = 0;
-        Piece[][] grid = board.getPieces();
+                boolean isProtected = (ownAttacks & bit) != 0;
+                boolean phalanx = (own & ADJACENT_FILES[col] & AttackTables.ROWS[row]) != 0;
+                if (isProtected || phalanx) {
+                    terms[TERM_CONNECTED + rank] += sign;
+                }
 
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (grid[row][col] != null) {
-                    count++;
+                // nothing in front on the three files, and not the rear pawn of a doubled pair
+                if ((enemy & PASSED_MASK[side][square]) == 0 && (own & FRONT_SPAN[side][square]) == 0) {
+                    passers |= bit;
+                    terms[TERM_PASSED + rank] += sign * passedPawnMultiplier(col, isProtected);
                 }
             }
+
+            if (side == 0) {
+                whiteSpan = span;
+                whitePassed = passers;
+            } else {
+                blackSpan = span;
+                blackPassed = passers;
+            }
         }
 
-        // Only evaluate when we are in endgame
-        return count <= TOTAL_PIECES_THRESHOLD;
+        entry.whitePassed = whitePassed;
+        entry.blackPassed = blackPassed;
+        entry.whiteAttacks = whiteAttacks;
+        entry.blackAttacks = blackAttacks;
+        entry.whiteAttackSpan = whiteSpan;
+        entry.blackAttackSpan = blackSpan;
     }
 
     /**
-     *
-     * @return true if a pawn can pass uncontested or false
+     * Terms times the weights -> the scores stored in the entry
      */
-    private boolean searchForPassing() {
-        return false;
+    private static void score(PawnHashEntry entry, double[] terms, EvaluationWeights weights) {
+        double structure = -weights.getPawnIsolated() * terms[TERM_ISOLATED]
+                - weights.getPawnBackward() * terms[TERM_BACKWARD]
+                - weights.getPawnDoubled() * terms[TERM_DOUBLED];
+        double passed = 0;
+        int[] connected = weights.getPawnConnected();
+        int[] passedBonus = weights.getPawnPassed();
+        for (int rank = 0; rank < 8; rank++) {
+            structure += connected[rank] * terms[TERM_CONNECTED + rank];
+            passed += passedBonus[rank] * terms[TERM_PASSED + rank];
+        }
+
+        entry.structureScore = (int) Math.round(structure);
+        entry.passedScore = (int) Math.round(passed);
+    }
+
+    /**
+     * A pawn is backward if no friendly pawn on an adjacent file is level with or behind it
+     * (so it can never be supported) and the square in front of it is covered by an enemy pawn
+     */
+    private static boolean isBackward(long own, long enemyAttacks, int side, int square) {
+        int row = square / 8;
+        int stop = side == 0 ? square - 8 : square + 8;
+        if (stop < 0 || stop > 63) {
+            return false;
+        }
+        return (enemyAttacks & (1L << stop)) != 0
+                && (own & ADJACENT_FILES[square % 8] & LEVEL_OR_BEHIND[side][row]) == 0;
+    }
+
+    private static double passedPawnMultiplier(int col, boolean isProtected) {
+        double multiplier = 1.0;
+
+        if (isProtected) {
+            multiplier *= PROTECTED_PAWN_BONUS;
+        }
+
+        if (col >= D_FILE && col <= E_FILE) {
+            multiplier *= CENTER_FILE_BONUS;
+        }
+
+        return multiplier;
     }
 }
@@ -1,5 +1,6 @@
 package dev.chess.ai.Engine.Evaluation.impl.Position;
 
+import dev.chess.ai.Engine.Evaluation.EvaluationWeights;
 import dev.chess.ai.Engine.Evaluation.Evaluator;
 import dev.chess.ai.Simulation.Board;
 import dev.chess.ai.Simulation.Piece;
@@ -7,6 +8,10 @@ import dev.chess.ai.Simulation.Piece;
 /**
  * Piece-Square Tables for positional evaluation
  * These tables assign bonuses/penalties for pieces on certain squares
+ *
+ * The tables are flattened into {@link EvaluationWeights#getPstMidgame()} / {@link EvaluationWeights#getPstEndgame()}
+ * so {@link Board} can keep both sums updated as pieces move -> evaluating is O(1) instead of a loop over the board.
+ * The two sums are blended by the game phase, see {@link #taper}
  */
 public class PieceSquareTables implements Evaluator {
 
@@ -16,84 +21,50 @@ public class PieceSquareTables implements Evaluator {
 
     @Override
     public double evaluate(Board board) {
-        return evaluatePieceSquareTables(board);
+        return taper(board.getPstMidgame(), board.getPstEndgame(), board.getPhase());
     }
 
-    private double evaluatePieceSquareTables(Board board) {
-        double score = 0;
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board.getPiece(row, col);
-                if (piece != null) {
-                    int value = this.getValue(board, piece.getSymbol(), row, col, piece.isWhite());
-                    score += piece.isWhite() ? value : -value; // oops
-                }
-            }
-        }
-        return score;
+    /**
+     * Blend a midgame and endgame score by game phase. No hard endgame switch -> the score
+     * moves smoothly as pieces come off so the search doesn't flip-flop around a threshold
+     *
+     * https://www.chessprogramming.org/Tapered_Eval
+     *
+     * @param phase 0 (bare kings and pawns) to {@link #TOTAL_PHASE} (all pieces on)
+     */
+    public static double taper(int midgame, int endgame, int phase) {
+        return (midgame * phase + endgame * (TOTAL_PHASE - phase)) / (double) TOTAL_PHASE;
     }
 
     /**
      * Get piece-square table value for a piece at a position
      *
-     * @param pieceType 'p', 'n', 'b', 'r', 'q', 'k'
+     * @param pieceType {@link Piece#getType()}
      * @param row board row (0-7)
      * @param col board column (0-7)
      * @param isWhite true if white piece
+     * @param endgame use the endgame tables
      * @return positional bonus/penalty
      */
-    private int getValue(Board board, char pieceType, int row, int col, boolean isWhite) {
+    private static int getValue(int pieceType, int row, int col, boolean isWhite, boolean endgame) {
         if (!isWhite) {
             row = 7 - row; // flip the table for black pieces
         }
 
-        switch (Character.toLowerCase(pieceType)) {
-            case 'p': return PAWN_TABLE[row][col];
-            case 'n': return KNIGHT_TABLE[row][col];
-            case 'b': return BISHOP_TABLE[row][col];
-            case 'r': return ROOK_TABLE[row][col];
-            case 'q': return QUEEN_TABLE[row][col];
-            case 'k': {
-                if(isEndgame(board)) {
-                    return KING_TABLE_ENDGAME[row][col];
-                } else {
-                    return KING_TABLE[row][col];
-                }
-            }
+        switch (pieceType) {
+            case Piece.PAWN: return endgame ? PAWN_TABLE_ENDGAME[row][col] : PAWN_TABLE[row][col];
+            case Piece.KNIGHT: return KNIGHT_TABLE[row][col];
+            case Piece.BISHOP: return BISHOP_TABLE[row][col];
+            case Piece.ROOK: return ROOK_TABLE[row][col];
+            case Piece.QUEEN: return QUEEN_TABLE[row][col];
+            case Piece.KING: return endgame ? KING_TABLE_ENDGAME[row][col] : KING_TABLE[row][col];
             default: return 0;
         }
     }
 
-    /**
-     * Determine if the game is in endgame phase
-     *
-     * Flag true when queens are off the board or total material below threshold
-     */
-    private boolean isEndgame(Board board) {
-        int pieceCount = 0;
-        boolean whiteQueenPresent = false;
-        boolean blackQueenPresent = false;
-
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board.getPiece(row, col);
-                if (piece != null) {
-                    pieceCount++;
-                    char symbol = Character.toLowerCase(piece.getSymbol());
-                    if (symbol == 'q') {
-                        if (piece.isWhite()) {
-                            whiteQueenPresent = true;
-                        } else {
-                            blackQueenPresent = true;
-                        }
-                    }
-                }
-            }
-        }
-
-        // Endgame if -> both queens are gone OR very few pieces remain
-        return (!whiteQueenPresent && !blackQueenPresent) || pieceCount <= 10;
-    }
+    // Game phase -> how much non-pawn material is left. Kept incrementally by Board
+    public static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0}; // [Piece#getType]
+    public static final int TOTAL_PHASE = 24; // 4 minors + 2 * 2 rooks + 2 * 4 queens
 
     public static final int[][] PAWN_TABLE = {
             {  0,   0,   0,   0,   0,   0,   0,   0 },
@@ -105,6 +76,17 @@ public class PieceSquareTables implements Evaluator {
             {  5,  10,  10, -20, -20,  10,  10,   5 },
             {  0,   0,   0,   0,   0,   0,   0,   0 }
     };
+    // Endgame -> the closer to promotion the better, center matters less
+    public static final int[][] PAWN_TABLE_ENDGAME = {
+            {  0,   0,   0,   0,   0,   0,   0,   0 },
+            { 80,  80,  80,  80,  80,  80,  80,  80 },
+            { 50,  50,  50,  50,  50,  50,  50,  50 },
+            { 30,  30,  30,  30,  30,  30,  30,  30 },
+            { 20,  20,  20,  20,  20,  20,  20,  20 },
+            { 10,  10,  10,  10,  10,  10,  10,  10 },
+            { 10,  10,  10,  10,  10,  10,  10,  10 },
+            {  0,   0,   0,   0,   0,   0,   0,   0 }
+    };
     public static final int[][] KNIGHT_TABLE = {
             { -50, -40, -30, -30, -30, -30, -40, -50 },
             { -40, -20,   0,   0,   0,   0, -20, -40 },
@@ -176,4 +158,16 @@ public class PieceSquareTables implements Evaluator {
                     {-50,-30,-30,-30,-30,-30,-30,-50},
             };
 
+    /**
+     * Hand entered table laid out by square for white -> default for PST_MG / PST_EG in {@link EvaluationWeights}.
+     * The tables the evaluation actually uses live in the weights snapshot
+     */
+    public static int[] getDefaultTable(int pieceType, boolean endgame) {
+        int[] table = new int[64];
+        for (int square = 0; square < 64; square++) {
+            table[square] = getValue(pieceType, square / 8, square % 8, true, endgame);
+        }
+        return table;
+    }
+
 }
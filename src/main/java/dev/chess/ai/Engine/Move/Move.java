@@ -50,6 +50,24 @@ public class Move {
         return "" + fromFile + fromRank + toFile + toRank;
     }
 
+    /**
+     * Moves are equal if they go between the same squares. The captured piece and score are
+     * ignored so moves regenerated at a node match killers and moves loaded from the TT
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Move)) return false;
+        Move other = (Move) o;
+        return fromRow == other.fromRow && fromCol == other.fromCol
+                && toRow == other.toRow && toCol == other.toCol;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((fromRow * 8 + fromCol) << 6) | (toRow * 8 + toCol);
+    }
+
     @Override
     public String toString() {
         return toUCI() + (capturedPiece != null ? " (capture)" : "");
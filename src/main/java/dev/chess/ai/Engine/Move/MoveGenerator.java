@@ -1,5 +1,6 @@
 package dev.chess.ai.Engine.Move;
 
+import dev.chess.ai.Engine.Board.StaticExchange;
 import dev.chess.ai.Simulation.Board;
 import dev.chess.ai.Simulation.Impl.King;
 import dev.chess.ai.Simulation.Impl.Knight;
@@ -32,7 +33,16 @@ public class MoveGenerator {
      * @return list of all legal moves
      */
     public List<Move> generateAllMoves(Board board, boolean isWhite) {
-        List<Move> legalMoves = new ArrayList<>();
+        return generateAllMoves(board, isWhite, new ArrayList<>());
+    }
+
+    /**
+     * Same as {@link #generateAllMoves(Board, boolean)} but appends to a list the caller reuses
+     *
+     * @param legalMoves list to fill, normally an empty buffer from {@link dev.chess.ai.Engine.Search.SearchContext}
+     * @return legalMoves
+     */
+    public List<Move> generateAllMoves(Board board, boolean isWhite, List<Move> legalMoves) {
         List<PiecePosition> pieces = board.getPieceCache().getList(isWhite);
 
         for (PiecePosition piecePos : pieces) {
@@ -152,6 +162,11 @@ public class MoveGenerator {
             int row = enemyPos.getRow();
             int col = enemyPos.getCol();
 
+            // isLegalMove plays captures on the grid only -> the cache still lists the captured piece
+            if (grid[row][col] != enemy) {
+                continue;
+            }
+
             if (enemy.isValidMove(row, col, targetRow, targetCol, grid)) {
                 return true;
             }
@@ -217,56 +232,46 @@ public class MoveGenerator {
 
     /**
      * Generate all capture positions. Used for {@link dev.chess.ai.Engine.Quiescence.QuiescenceSearch}
+     * <p>
+     * Works from the targets instead of the pieces -> for every enemy piece, the pieces attacking it come
+     * straight out of {@link StaticExchange#attackersTo}. Nothing is tried against empty or own squares.
+     * Victims go from the queen down and attackers from the pawn up, so the list comes out
+     * MVV-LVA ordered without a sort. Legality is a bitboard test of the king after the capture
      *
      * @param board
      * @param isWhite
-     * @return
+     * @return legal captures, victims by piece type (queen -> pawn) then least valuable attacker first
      */
     public List<Move> generateCaptureMoves(Board board, boolean isWhite) {
-        List<Move> captures = new ArrayList<>();
-        Piece[][] grid = board.getPieces();
+        return generateCaptureMoves(board, isWhite, new ArrayList<>());
+    }
 
-        List<PiecePosition> pieces = board.getPieceCache().getList(isWhite);
-        for (PiecePosition piecePos : pieces) {
-            int fromRow = piecePos.getRow();
-            int fromCol = piecePos.getCol();
-            Piece piece = piecePos.getPiece();
+    /**
+     * Same as {@link #generateCaptureMoves(Board, boolean)} but appends to a list the caller reuses
+     */
+    public List<Move> generateCaptureMoves(Board board, boolean isWhite, List<Move> captures) {
+        Piece[][] grid = board.getPieces();
 
-            // optimal
-            if (piece instanceof Knight) {
-                int[][] knightMoves = {{-2,-1},{-2,1},{-1,-2},{-1,2},{1,-2},{1,2},{2,-1},{2,1}};
-                for (int[] offset : knightMoves) {
-                    int toRow = fromRow + offset[0];
-                    int toCol = fromCol + offset[1];
-                    if (!board.isValidPosition(toRow, toCol)) continue;
-
-                    Piece target = grid[toRow][toCol];
-                    if (target != null && target.isWhite() != isWhite &&
-                            piece.isValidMove(fromRow, fromCol, toRow, toCol, grid)) {
-
-                        Move move = new Move(fromRow, fromCol, toRow, toCol, target);
-                        if (isLegalMove(board, move, isWhite)) {
-                            captures.add(move);
-                        }
-                    }
+        int us = isWhite ? 0 : 6;
+        int them = isWhite ? 6 : 0;
+        long occupied = board.getOccupancy();
+        long own = board.getOccupancy(isWhite);
+
+        // the king can't be captured -> victims stop at the queen
+        for (int victim = Piece.QUEEN; victim >= Piece.PAWN; victim--) {
+            for (long targets = board.getBitboard(victim + them); targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                long attackers = StaticExchange.attackersTo(board, to, occupied) & own;
+                if (attackers == 0) {
+                    continue;
                 }
-                continue;
-            }
-
-            for (int toRow = 0; toRow < 8; toRow++) {
-                for (int toCol = 0; toCol < 8; toCol++) {
-                    Piece target = board.getPiece(toRow, toCol);
-                    if (target == null || target.isWhite() == isWhite) {
-                        continue;
-                    }
 
-                    if (!piece.isValidMove(fromRow, fromCol, toRow, toCol, grid)) {
-                        continue;
-                    }
-
-                    Move move = new Move(fromRow, fromCol, toRow, toCol, target);
-                    if (isLegalMove(board, move, isWhite)) {
-                        captures.add(move);
+                for (int attacker = Piece.PAWN; attacker <= Piece.KING; attacker++) {
+                    for (long from = attackers & board.getBitboard(attacker + us); from != 0; from &= from - 1) {
+                        int square = Long.numberOfTrailingZeros(from);
+                        if (isLegalCapture(board, square, to, attacker == Piece.KING, isWhite)) {
+                            captures.add(new Move(square / 8, square % 8, to / 8, to % 8, grid[to / 8][to % 8]));
+                        }
                     }
                 }
             }
@@ -275,4 +280,18 @@ public class MoveGenerator {
         return captures;
     }
 
+    /**
+     * Own king not attacked after the capture -> the board isn't touched, the capture is
+     * played on a local occupancy and the captured piece is dropped from the attackers
+     */
+    private boolean isLegalCapture(Board board, int from, int to, boolean kingMoves, boolean isWhite) {
+        int king = kingMoves ? to : board.getKingSquare(isWhite);
+        if (king < 0) {
+            return true;
+        }
+        long occupied = board.getOccupancy() ^ (1L << from); // to stays occupied, now by us
+        long enemies = board.getOccupancy(!isWhite) & ~(1L << to);
+        return (StaticExchange.attackersTo(board, king, occupied) & enemies) == 0;
+    }
+
 }
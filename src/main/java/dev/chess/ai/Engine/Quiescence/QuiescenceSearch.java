@@ -4,9 +4,12 @@ import dev.chess.ai.Engine.Evaluation.Evaluator;
 import dev.chess.ai.Engine.Evaluation.impl.Material.MaterialEvaluator;
 import dev.chess.ai.Engine.Move.Move;
 import dev.chess.ai.Engine.Move.MoveGenerator;
+import dev.chess.ai.Engine.Search.MateScore;
+import dev.chess.ai.Engine.Search.SearchContext;
+import dev.chess.ai.Engine.Table.TranspositionTable;
+import dev.chess.ai.Engine.Table.TranspositionTableEntry;
 import dev.chess.ai.Simulation.Board;
 import dev.chess.ai.Simulation.Piece;
-import dev.chess.ai.Util.Math.PiecePosition;
 
 import java.util.List;
 
@@ -18,28 +21,49 @@ import java.util.List;
  * What if you were to search one move deeper and find that the next move is PxQ?
  * You didn't win a pawn, you actually lost a queen
  * <p>
+ * Holds no search state itself -> move lists, counters and the SEE swap list come from the caller's
+ * {@link SearchContext}, so one instance can serve every search thread
+ * <p>
  * https://www.chessprogramming.org/Quiescence_Search
  */
 public class QuiescenceSearch {
 
     private final MoveGenerator moveGenerator;
     private final Evaluator evaluator;
-    private final MaterialEvaluator materialEvaluator;
+    private final TranspositionTable transpositionTable;
 
     // Maximum depth for quiescence search to prevent infinite recursion
     private static final int MAX_QUIESCENCE_DEPTH = 10;
 
+    // Positional swing a capture can bring on top of the material it wins
+    private static final int DELTA_MARGIN = 200;
+
     public QuiescenceSearch(Evaluator evaluator, MoveGenerator moveGenerator) {
+        this(evaluator, moveGenerator, null);
+    }
+
+    /**
+     * @param transpositionTable shared with the main search, null -> quiescence runs without one
+     */
+    public QuiescenceSearch(Evaluator evaluator, MoveGenerator moveGenerator, TranspositionTable transpositionTable) {
         this.evaluator = evaluator;
         this.moveGenerator = moveGenerator;
-        this.materialEvaluator = new MaterialEvaluator();
+        this.transpositionTable = transpositionTable;
     }
 
     /**
      * Entry point for quiescence search
+     * <p>
+     * alpha / beta and the result are white positive like the main search.
+     * Inside it's negamax -> scores are from the side to move's view
+     *
+     * @param ply distance from the root of the main search, quiescence continues the context's stacks from there
      */
-    public double searchCaptures(Board board, double alpha, double beta, boolean isWhiteTurn) {
-        return searchCaptures(board, alpha, beta, isWhiteTurn, MAX_QUIESCENCE_DEPTH);
+    public double searchCaptures(SearchContext context, Board board, double alpha, double beta, boolean isWhiteTurn, int ply) {
+        if (isWhiteTurn) {
+            return searchCaptures(context, board, alpha, beta, true, MAX_QUIESCENCE_DEPTH, ply);
+        }
+        return -searchCaptures(context, board, -beta, -alpha, false, MAX_QUIESCENCE_DEPTH, ply);
     }
 
     // Lets do some testing...
@@ -52,91 +76,177 @@ public class QuiescenceSearch {
      * Use {@link MaterialEvaluator} to assess pieces are willing to sacrificing
      * if sacrificing is something we are okay with doing
      * <p>
+     * In check standing pat isn't an option (the threat is real) -> every evasion is searched instead
+     * and no evasion means mate.
+     * Results go into the shared transposition table at depth 0 with the static eval next to them,
+     * so a position reached again skips both the search and the evaluation
+     * <p>
      * Worst-case: O(N^d) where N is number of captures per position and d is quiescence depth.
      *
-     * @param board
-     * @param alpha
-     * @param beta
-     * @return
+     * @return score for the side to move
      */
-    private double searchCaptures(Board board, double alpha, double beta, boolean isWhiteTurn, int depth) {
-
-        // fix explosions
-        if (depth <= 0) {
-            return this.evaluator.evaluate(board);
+    private double searchCaptures(SearchContext context, Board board, double alpha, double beta, boolean isWhiteTurn, int depth, int ply) {
+        context.visit(ply, true);
+        if (context.isStopped()) {
+            return 0;
+        }
+        double sign = isWhiteTurn ? 1 : -1;
+        long zobristHash = board.getZobristHash();
+        double originalAlpha = alpha;
+
+        // anything in the table is at least a quiescence search of this position
+        TranspositionTableEntry entry = transpositionTable == null ? null : transpositionTable.probe(zobristHash);
+        if (entry != null) {
+            double score = sign * MateScore.fromTable(entry.score, ply);
+            byte flag = isWhiteTurn ? entry.flag : flip(entry.flag);
+            if (flag == TranspositionTableEntry.EXACT
+                    || (flag == TranspositionTableEntry.LOWER_BOUND && score >= beta)
+                    || (flag == TranspositionTableEntry.UPPER_BOUND && score <= alpha)) {
+                return score;
+            }
         }
 
-        double standardPat = this.evaluator.evaluate(board);
+        boolean inCheck = board.isInCheck(isWhiteTurn);
+        double staticEval = Double.NaN; // white positive, only set when exact
+        double bestScore;
+        double standardPat = Double.NEGATIVE_INFINITY; // side to move's view, only without check
+        List<Move> moves;
 
-        // Position is already too good for us -> no need to explore
-        if (standardPat >= beta) {
-            return beta;
+        // stacks end at MAX_PLY -> treat it like the depth cap
+        if (ply >= SearchContext.MAX_PLY - 1) {
+            depth = 0;
         }
 
-        if (standardPat > alpha) {
-            alpha = standardPat;
-        }
+        if (inCheck) {
+            moves = moveGenerator.generateAllMoves(board, isWhiteTurn, context.getMoveBuffer(ply));
+            if (moves.isEmpty()) {
+                return -MateScore.mateIn(ply); // mated
+            }
+            context.setStaticEval(ply, Double.NaN);
+            if (depth <= 0) {
+                return sign * this.evaluator.evaluate(board); // fix explosions
+            }
+            bestScore = Double.NEGATIVE_INFINITY;
+        } else {
+            if (entry != null && !Double.isNaN(entry.staticEval)) {
+                staticEval = entry.staticEval;
+                standardPat = sign * staticEval;
+            } else {
+                // only needs to know if stand pat beats the window -> lets the evaluator skip expensive terms
+                double eval = isWhiteTurn
+                        ? this.evaluator.evaluate(board, alpha, beta)
+                        : this.evaluator.evaluate(board, -beta, -alpha);
+                standardPat = sign * eval;
+                if (standardPat > alpha && standardPat < beta) {
+                    staticEval = eval; // inside the window -> exact, not a lazy bound
+                }
+            }
+            context.setStaticEval(ply, staticEval);
 
-        // Delta pruning -> only continue if a capture could improve alpha
-        // https://talkchess.com/viewtopic.php?t=80325
-        // we can model this as an equation with
-        // if(statc_eval + Δ < α) return α
-        if (standardPat + getBigDelta() + 200 < alpha) {
-            return alpha;
-        }
+            // Position is already too good for us -> no need to explore
+            // fix explosions -> depth cap returns the stand pat
+            if (standardPat >= beta || depth <= 0) {
+                return standardPat;
+            }
 
-        List<Move> captures = moveGenerator.generateCaptureMoves(board, isWhiteTurn);
-        // Sorting for effectiveness
-        captures.sort((m1, m2) -> {
-            return Integer.compare(
-                    (materialEvaluator.getPieceValue(m2.getCapturedPiece()) * 10
-                            - materialEvaluator.getPieceValue(board.getPiece(m2.getFromRow(), m2.getFromCol()))),
-                    (materialEvaluator.getPieceValue(m1.getCapturedPiece()) * 10
-                            - materialEvaluator.getPieceValue(board.getPiece(m1.getFromRow(), m1.getFromCol())))
-            );
-        });
+            if (standardPat > alpha) {
+                alpha = standardPat;
+            }
 
-        for (Move move : captures) {
+            // Delta pruning -> only continue if a capture could improve alpha
+            // https://talkchess.com/viewtopic.php?t=80325
+            // we can model this as an equation with
+            // if(statc_eval + Δ < α) return α
+            if (standardPat + getBigDelta(board) + DELTA_MARGIN < alpha) {
+                return alpha;
+            }
+
+            // already MVV-LVA ordered by the generator
+            moves = moveGenerator.generateCaptureMoves(board, isWhiteTurn, context.getMoveBuffer(ply));
+            bestScore = standardPat;
+        }
+
+        Move bestMove = null;
+        for (Move move : moves) {
 
             // skip bad captures
             // "If I take this -> and it’s obviously defended by something cheaper -> don’t even try"
-            if (isLosingCapture(board, move, isWhiteTurn)) {
-                continue;
+            // evasions are never skipped, they might be the only way out
+            if (!inCheck) {
+                // Per move delta pruning -> even winning the victim for free doesn't reach alpha.
+                // Only skip this one, the list is ordered by piece type and tuned weights
+                // can make a later victim worth more (knight > bishop)
+                int victimValue = board.getWeights().getMaterial(move.getCapturedPiece().getType());
+                if (standardPat + victimValue + DELTA_MARGIN <= alpha) {
+                    continue;
+                }
+
+                if (isLosingCapture(context, board, move)) {
+                    continue;
+                }
             }
 
             board.movePiece(move);
 
             // Were going to use a score similar to our search engine
             // This is technically alpha beta pruning search but with depth extension
-            double score = searchCaptures(board, alpha, beta, !isWhiteTurn, depth - 1);
+            double score = -searchCaptures(context, board, -beta, -alpha, !isWhiteTurn, depth - 1, ply + 1);
 
             board.undoMove(move);
 
-            // This is a good move but we anticipate that our opponent
-            // won't let us take the piece
-            if (score >= beta) {
-                return beta;
+            // search was stopped -> the score is garbage, don't store it
+            if (context.isStopped()) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
             }
 
             // Update alpha
             if (score > alpha) {
                 alpha = score;
             }
+
+            // This is a good move but we anticipate that our opponent
+            // won't let us take the piece
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        if (transpositionTable != null) {
+            byte flag = bestScore <= originalAlpha ? TranspositionTableEntry.UPPER_BOUND
+                    : bestScore >= beta ? TranspositionTableEntry.LOWER_BOUND
+                    : TranspositionTableEntry.EXACT;
+            // table is white positive like the main search
+            transpositionTable.store(zobristHash, (int) MateScore.toTable(sign * bestScore, ply), 0,
+                    isWhiteTurn ? flag : flip(flag), bestMove, (byte) 0, staticEval);
         }
 
-        return alpha;
+        return bestScore;
+    }
+
+    // Bounds swap when the score changes sides
+    private static byte flip(byte flag) {
+        if (flag == TranspositionTableEntry.LOWER_BOUND) {
+            return TranspositionTableEntry.UPPER_BOUND;
+        }
+        if (flag == TranspositionTableEntry.UPPER_BOUND) {
+            return TranspositionTableEntry.LOWER_BOUND;
+        }
+        return flag;
     }
 
     /**
-     * The value of the piece that has the highest value on our board
-     * {@link MaterialEvaluator#QUEEN_VALUE}
+     * The value of the piece that has the highest value on our board -> the queen in the board's weights,
+     * the same snapshot the per move check uses so a tuned queen can't be pruned away
      *
      * @return Big Delta
      */
-    private double getBigDelta() {
-        //final double QUEEN_VALUE = 900;
-        //double bigDelta = QUEEN_VALUE;
-        return MaterialEvaluator.QUEEN_VALUE;
+    private double getBigDelta(Board board) {
+        return board.getWeights().getMaterial(Piece.QUEEN);
     }
 
     /**
@@ -145,247 +255,18 @@ public class QuiescenceSearch {
      *
      * @param board the current board state
      * @param move the capture move to evaluate
-     * @param byWhite true if white is making the capture
      * @return true if the capture loses material, false otherwise
-     * @return
      */
     // Skip obviously bad captures (e.g., QxP when pawn is defended by pawn)
     /// improved method -> calling {@link Piece#isValidMove} turns our program to O(64 x isValidMove) which is insane
     // irrelevant because we moved our board over to caching  ^^
-    private boolean isLosingCapture(Board board, Move move, boolean byWhite) {
+    private boolean isLosingCapture(SearchContext context, Board board, Move move) {
         if (move.getCapturedPiece() == null) {
             return false; // not a capture piece
         }
 
         // this is better than our old shitty MVV < MVA method
-        return staticExchangeEvaluation(board, move, byWhite) < 0;
-    }
-
-    /**
-     * Use SEE Algorithm to account for if were going to get captured
-     * https://www.chessprogramming.org/Static_Exchange_Evaluation
-     * https://mediocrechess.blogspot.com/2007/03/guide-static-exchange-evaluation-see.html
-     *
-     * https://github.com/tildedave/ra-chess-engine/blob/main/static_exchange_eval.go
-     *
-     * @param board
-     * @param capture
-     * @param byWhite
-     * @return
-     */
-    public int staticExchangeEvaluation(Board board, Move capture, boolean byWhite) {
-        if (capture.getCapturedPiece() == null) {
-            return 0; // no capture
-        }
-
-        Piece attacker = board.getPiece(capture.getFromRow(), capture.getFromCol());
-        if (attacker == null) {
-            return 0;
-        }
-
-        int[] gain = new int[32];
-        int i = 0; // this will double as our depth
-
-        gain[i] = materialEvaluator.getPieceValue(capture.getCapturedPiece());
-        int attackerValue = materialEvaluator.getPieceValue(attacker);
-        boolean currentTurn = !byWhite; // defenders turn -> us = !us
-
-        board.movePiece(capture);
-        Move[] moveStack = new Move[32];
-        moveStack[0] = capture;
-
-        while (i < 31) { // because im retarded and can't figure out a simple out of bounds index error
-            i++;
-            PiecePosition cheapestAttacker = findCheapestAttacker(board, capture.getToRow(), capture.getToCol(), currentTurn);
-
-            if (cheapestAttacker == null) {
-                break; // No more attackers
-            }
-
-            Piece capturer = cheapestAttacker.getPiece();
-            int capturerValue = materialEvaluator.getPieceValue(capturer);
-            gain[i] = attackerValue - gain[i - 1];
-
-            Move recapture = new Move(
-                    cheapestAttacker.getRow(),
-                    cheapestAttacker.getCol(),
-                    capture.getToRow(),
-                    capture.getToCol(),
-                    board.getPiece(capture.getToRow(), capture.getToCol())
-            );
-            moveStack[i] = recapture;
-            board.movePiece(recapture);
-
-            attackerValue = capturerValue;
-            currentTurn = !currentTurn;
-        }
-
-        for (int index = i; index >= 0; index--) {
-            if (moveStack[index] != null) {
-                board.undoMove(moveStack[index]);
-            }
-        }
-
-        //
-        while (--i > 0) {
-            gain[i - 1] = -Math.max(-gain[i - 1], gain[i]);
-        }
-
-        return gain[0];
-    }
-
-    private PiecePosition findCheapestAttacker(Board board, int targetRow, int targetCol, boolean isWhite) {
-        Piece[][] grid = board.getPieces();
-        int cheapest = Integer.MAX_VALUE;
-        PiecePosition cheapestPos = null;
-
-        List<PiecePosition> attackers = board.getPieceCache().getList(isWhite);
-
-        for (PiecePosition attackerPos : attackers) {
-            int row = attackerPos.getRow();
-            int col = attackerPos.getCol();
-            Piece p = attackerPos.getPiece();
-
-            if (!attacksSquare(p, row, col, targetRow, targetCol, grid)) {
-                continue;
-            }
-
-            Move testMove = new Move(row, col, targetRow, targetCol, grid[targetRow][targetCol]);
-            if (!moveGenerator.isLegalMove(board, testMove, isWhite)) {
-                continue;
-            }
-
-            int value = materialEvaluator.getPieceValue(p);
-            if (value < cheapest) {
-                cheapest = value;
-                cheapestPos = attackerPos;
-            }
-        }
-
-        return cheapestPos;
-    }
-
-    /**
-     * Find the cheapest piece defending a target square
-     *
-     * @param board the current board state
-     * @param targetRow the row of the square being attacked
-     * @param targetCol the column of the square being attacked
-     * @param attackerIsWhite true if the attacker is white (defender is black)
-     * @return the material value of the cheapest defender, or -1 if no defender exists
-     */
-    @Deprecated
-    private int findCheapestDefender(Board board, int targetRow, int targetCol, boolean attackerIsWhite) {
-        Piece[][] grid = board.getPieces();
-        int cheapest = Integer.MAX_VALUE;
-        List<PiecePosition> defenders = board.getPieceCache().getList(!attackerIsWhite);
-        for (PiecePosition defenderPos : defenders) {
-            int row = defenderPos.getRow();
-            int col = defenderPos.getCol();
-            Piece p = defenderPos.getPiece();
-
-            if (!attacksSquare(p, row, col, targetRow, targetCol, grid)) {
-                continue;
-            }
-
-            Move recapture = new Move(row, col, targetRow, targetCol, grid[targetRow][targetCol]);
-            if (!moveGenerator.isLegalMove(board, recapture, !attackerIsWhite)) {
-                continue; // is it pinned or illegal?
-            }
-
-            int value = materialEvaluator.getPieceValue(p);
-            if (value < cheapest) {
-                cheapest = value;
-            }
-        }
-
-        return cheapest == Integer.MAX_VALUE ? -1 : cheapest;
-    }
-
-    private boolean attacksSquare(Piece piece, int row, int col, int targetRow, int targetCol, Piece[][] grid) {
-        switch (Character.toLowerCase(piece.getSymbol())) {
-            case 'p': {
-                return pawnAttacksSquare(piece, row, col, targetRow, targetCol);
-            }
-            case 'n': {
-                return knightAttacksSquare(row, col, targetRow, targetCol);
-            }
-            case 'b': {
-                return bishopAttacksSquare(row, col, targetRow, targetCol, grid);
-            }
-            case 'r': {
-                return rookAttacksSquare(row, col, targetRow, targetCol, grid);
-            }
-            case 'q': {
-                return queenAttacksSquare(row, col, targetRow, targetCol, grid);
-            }
-            case 'k': {
-                return Math.max(
-                        Math.abs(targetRow - row),
-                        Math.abs(targetCol - col)
-                ) == 1;
-            }
-        }
-        return false;
-    }
-
-    private boolean pawnAttacksSquare(Piece pawn, int fromRow, int fromCol, int toRow, int toCol) {
-        int direction = pawn.isWhite() ? -1 : 1;
-        return toRow - fromRow == direction && Math.abs(toCol - fromCol) == 1;
-    }
-
-    private boolean knightAttacksSquare(int fr, int fc, int tr, int tc) {
-        int dr = Math.abs(tr - fr);
-        int dc = Math.abs(tc - fc);
-        return (dr == 2 && dc == 1) || (dr == 1 && dc == 2);
-    }
-
-    private boolean bishopAttacksSquare(int fromRow, int fromCol, int toRow, int toCol, Piece[][] grid) {
-        int rowDiff = Math.abs(toRow - fromRow);
-        int colDiff = Math.abs(toCol - fromCol);
-
-        if (rowDiff != colDiff || rowDiff == 0) return false;
-
-        // is path clear ? true -> 1 | false -> -1
-        int rowDir = (toRow - fromRow) > 0 ? 1 : -1;
-        int colDir = (toCol - fromCol) > 0 ? 1 : -1;
-
-        int r = fromRow + rowDir;
-        int c = fromCol + colDir;
-
-        while (r != toRow) {
-            if (grid[r][c] != null) return false; // Path blocked
-            r += rowDir;
-            c += colDir;
-        }
-        return true;
-    }
-
-    private boolean rookAttacksSquare(int fromRow, int fromCol, int toRow, int toCol, Piece[][] grid) {
-        if (fromRow != toRow && fromCol != toCol) return false;
-
-        if (fromRow == toRow) {
-            int start = Math.min(fromCol, toCol) + 1;
-            int end = Math.max(fromCol, toCol);
-            for (int c = start; c < end; c++) {
-                if (grid[fromRow][c] != null) {
-                    return false;
-                }
-            }
-        } else {
-            int start = Math.min(fromRow, toRow) + 1;
-            int end = Math.max(fromRow, toRow);
-            for (int r = start; r < end; r++) {
-                if (grid[r][fromCol] != null) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
-    private boolean queenAttacksSquare(int fromRow, int fromCol, int toRow, int toCol, Piece[][] grid) {
-        return bishopAttacksSquare(fromRow, fromCol, toRow, toCol, grid)
-                || rookAttacksSquare(fromRow, fromCol, toRow, toCol, grid);
+        // swap list over the board's bitboards -> see {@link dev.chess.ai.Engine.Board.StaticExchange}
+        return !context.getStaticExchange().isAtLeast(board, move, 0);
     }
 }
@@ -3,8 +3,13 @@ package dev.chess.ai.Engine.Search;
 import dev.chess.ai.Engine.Move.Move;
 import dev.chess.ai.Engine.Move.MoveGenerator;
 import dev.chess.ai.Engine.Evaluation.Evaluator;
+import dev.chess.ai.Engine.Table.TranspositionTable;
 import dev.chess.ai.Simulation.Board;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
 /**
  * TODO: Add optional QuiescenceSearch for search algorithms that need it
  */
@@ -13,6 +18,15 @@ public abstract class Algorithm {
     protected final Evaluator evaluator;
     protected final MoveGenerator moveGenerator;
     protected int nodesSearched;
+    protected volatile SearchResult lastResult; // read by UI threads
+
+    private final List<SearchListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Set from another thread -> the search polls it every few thousand nodes
+    private volatile boolean stopRequested;
+
+    // One per search thread -> allocated on the thread's first search, reused after that
+    private final ThreadLocal<SearchContext> contexts = ThreadLocal.withInitial(SearchContext::new);
 
     public Algorithm(Evaluator evaluator, MoveGenerator moveGenerator) {
         this.evaluator = evaluator;
@@ -29,11 +43,98 @@ public abstract class Algorithm {
      */
     public abstract Move findBestMove(Board board, boolean isWhite, int depth);
 
+    /**
+     * Search and report everything that was found, see {@link SearchResult}
+     * <p>
+     * Default wraps {@link #findBestMove} -> the PV is just the best move and there is no score.
+     * Algorithms that track more override this
+     */
+    public SearchResult search(Board board, boolean isWhite, int depth) {
+        return search(board, isWhite, depth, () -> false);
+    }
+
+    /**
+     * @param stopSignal polled like {@link #stop()} -> a caller owned flag can't be cleared by the next search
+     *                   starting, so a stop sent before this search got going still counts
+     */
+    public SearchResult search(Board board, boolean isWhite, int depth, BooleanSupplier stopSignal) {
+        long start = System.currentTimeMillis();
+        Move bestMove = findBestMove(board, isWhite, depth);
+        long elapsed = System.currentTimeMillis() - start;
+
+        TranspositionTable table = getTranspositionTable();
+        lastResult = new SearchResult(bestMove, bestMove == null ? List.of() : List.of(bestMove), Double.NaN,
+                depth, depth, nodesSearched, elapsed, table == null ? 0 : table.getHashfull());
+        notifyIteration(lastResult);
+        return lastResult;
+    }
+
+    /**
+     * Ask the running search to stop as soon as it can. It returns the last iteration it finished
+     * (or its first root move if it never finished one). No effect on algorithms that don't poll it
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    /**
+     * Called when a search starts -> a stop meant for the previous search doesn't carry over
+     */
+    protected void clearStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Get told about every finished iteration, see {@link SearchListener}
+     */
+    public void addListener(SearchListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SearchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Hand an iteration to the listeners. Called on the search thread
+     */
+    protected void notifyIteration(SearchResult result) {
+        for (SearchListener listener : listeners) {
+            listener.onIteration(result);
+        }
+    }
+
+    /**
+     * Best few root moves, one result each -> best first, at most lines of them
+     * <p>
+     * Default only knows the single best move. Algorithms that can exclude root moves override this
+     *
+     * @return never empty, a finished game gives one result without a move
+     */
+    public List<SearchResult> searchMultiPv(Board board, boolean isWhite, int depth, int lines) {
+        return List.of(search(board, isWhite, depth));
+    }
+
+    /**
+     * @return result of the last {@link #search}, null before the first one
+     */
+    public SearchResult getLastResult() {
+        return lastResult;
+    }
+
     /**
      * Get the name of this algorithm
      */
     public abstract String getName();
 
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
     /**
      * Get the number of nodes searched in the last search
      */
@@ -41,6 +142,20 @@ public abstract class Algorithm {
         return nodesSearched;
     }
 
+    /**
+     * @return the table this algorithm caches positions in, or null if it doesn't use one
+     */
+    public TranspositionTable getTranspositionTable() {
+        return null;
+    }
+
+    /**
+     * Search state of the calling thread. See {@link SearchContext}
+     */
+    protected SearchContext getContext() {
+        return contexts.get();
+    }
+
     /**
      * Reset node counter
      */
@@ -0,0 +1,76 @@
+package dev.chess.ai.Engine.Search;
+
+/**
+ * Mate scores that know how far away the mate is -> mated at ply p scores MATE - p
+ * <p>
+ * A plain +/- infinity makes every mate look the same, so the search happily plays a mate in 5
+ * over a mate in 1 (or walks around a won position forever). With the distance in the score
+ * a shorter mate is simply a bigger number and a later mate against us a smaller loss
+ * <p>
+ * Scores are always relative to the root, the transposition table stores them relative to the
+ * node instead -> {@link #toTable} / {@link #fromTable}, otherwise the same position reached at
+ * another ply would come back with the wrong distance
+ * <p>
+ * https://www.chessprogramming.org/Score#Mate_Scores
+ * https://www.chessprogramming.org/Mate_Distance_Pruning
+ */
+public final class MateScore {
+
+    // Way above any evaluation (known wins sit around 10000) and still fits the table's int scores
+    public static final int MATE = 100_000;
+
+    // Anything beyond this is a mate score -> no mate can be further away than MAX_PLY
+    public static final int MATE_BOUND = MATE - SearchContext.MAX_PLY;
+
+    private MateScore() {
+
+    }
+
+    /**
+     * @return positive score of mating the opponent at this ply, negate it for being mated
+     */
+    public static double mateIn(int ply) {
+        return MATE - ply;
+    }
+
+    public static boolean isMate(double score) {
+        return Math.abs(score) >= MATE_BOUND;
+    }
+
+    /**
+     * @return plies until the mate, 0 if the score isn't one
+     */
+    public static int getPlies(double score) {
+        if (!isMate(score)) {
+            return 0;
+        }
+        // +/- infinity from the searches without distances -> treat as right away
+        return Double.isInfinite(score) ? 1 : (int) (MATE - Math.abs(score));
+    }
+
+    /**
+     * Root relative -> node relative. Works for either sign convention
+     */
+    public static double toTable(double score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Node relative -> root relative, the inverse of {@link #toTable}
+     */
+    public static double fromTable(double score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+}
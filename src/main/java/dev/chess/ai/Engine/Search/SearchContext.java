@@ -0,0 +1,227 @@
+package dev.chess.ai.Engine.Search;
+
+import dev.chess.ai.Engine.Board.StaticExchange;
+import dev.chess.ai.Engine.Move.Move;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Everything one search thread writes while it searches -> move lists, killers, history, PV and counters
+ * <p>
+ * Stacks are indexed by ply (distance from the root) so a node only ever touches its own slot
+ * and the slots of its children. It's all allocated once and reset between searches,
+ * the search itself allocates nothing for bookkeeping
+ * <p>
+ * Not thread safe on purpose -> one context per thread, see {@link Algorithm#getContext()}.
+ * Shared things (transposition table, evaluator weights) stay outside
+ *
+ * https://www.chessprogramming.org/Killer_Heuristic
+ * https://www.chessprogramming.org/History_Heuristic
+ */
+public class SearchContext {
+
+    // Main search + quiescence can never go deeper than this
+    public static final int MAX_PLY = 128;
+
+    private final List<Move>[] moveBuffers;
+    private final double[] staticEvals = new double[MAX_PLY];
+
+    // Quiet moves that caused a beta cutoff at the same ply -> likely to cut again in a sibling
+    private final Move[][] killerMoves = new Move[MAX_PLY][2];
+    private final int[][] historyScores = new int[64][64]; // [from][to]
+
+    // Triangular PV -> row ply holds the best line found from that ply down, children's rows get copied up
+    private final Move[][] pv = new Move[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+
+    // Move a singular extension check leaves out at that ply -> null for a normal search
+    private final Move[] excludedMoves = new Move[MAX_PLY];
+
+    private final StaticExchange staticExchange = new StaticExchange();
+
+    // Polled every STOP_CHECK_INTERVAL nodes -> reading a volatile on every node costs more than it's worth
+    private static final int STOP_CHECK_INTERVAL = 2048;
+
+    private long nodes;
+    private long quiescenceNodes;
+    private int selectiveDepth;
+
+    private BooleanSupplier stopSignal = () -> false;
+    private boolean stopped;
+
+    @SuppressWarnings("unchecked")
+    public SearchContext() {
+        this.moveBuffers = (List<Move>[]) new List<?>[MAX_PLY];
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            moveBuffers[ply] = new ArrayList<>(64);
+        }
+        Arrays.fill(staticEvals, Double.NaN);
+    }
+
+    /**
+     * Clear everything the previous search left behind. Buffers keep their capacity
+     */
+    public void reset() {
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            killerMoves[ply][0] = null;
+            killerMoves[ply][1] = null;
+            pvLength[ply] = 0;
+            excludedMoves[ply] = null;
+        }
+        for (int[] row : historyScores) {
+            Arrays.fill(row, 0);
+        }
+        Arrays.fill(staticEvals, Double.NaN);
+        nodes = 0;
+        quiescenceNodes = 0;
+        selectiveDepth = 0;
+        stopped = false;
+    }
+
+    /**
+     * Empty move list owned by this ply. Only valid until the same ply asks again
+     */
+    public List<Move> getMoveBuffer(int ply) {
+        List<Move> moves = moveBuffers[ply];
+        moves.clear();
+        return moves;
+    }
+
+    /**
+     * Count a node and track the deepest ply reached
+     */
+    public void visit(int ply, boolean quiescence) {
+        if (++nodes % STOP_CHECK_INTERVAL == 0 && stopSignal.getAsBoolean()) {
+            stopped = true;
+        }
+        if (quiescence) {
+            quiescenceNodes++;
+        }
+        if (ply > selectiveDepth) {
+            selectiveDepth = ply;
+        }
+    }
+
+    /**
+     * Where the search learns it should stop, e.g. {@link Algorithm#isStopRequested()}
+     */
+    public void setStopSignal(BooleanSupplier stopSignal) {
+        this.stopSignal = stopSignal;
+    }
+
+    /**
+     * Once true every node returns right away without storing anything -> the scores it
+     * passes up are meaningless and the iteration that saw it gets thrown away
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    // Killers
+
+    /**
+     * @return 1 or 2 for the first / second killer at this ply, 0 if it isn't one
+     */
+    public int getKillerSlot(int ply, Move move) {
+        if (move.equals(killerMoves[ply][0])) {
+            return 1;
+        }
+        if (move.equals(killerMoves[ply][1])) {
+            return 2;
+        }
+        return 0;
+    }
+
+    public void storeKiller(int ply, Move move) {
+        if (!move.equals(killerMoves[ply][0])) {
+            killerMoves[ply][1] = killerMoves[ply][0];
+            killerMoves[ply][0] = move;
+        }
+    }
+
+    // History
+
+    public int getHistory(Move move) {
+        return historyScores[move.getFromRow() * 8 + move.getFromCol()][move.getToRow() * 8 + move.getToCol()];
+    }
+
+    /**
+     * Deeper cutoffs say more -> bonus grows with depth squared
+     */
+    public void addHistory(Move move, int depth) {
+        historyScores[move.getFromRow() * 8 + move.getFromCol()][move.getToRow() * 8 + move.getToCol()] += depth * depth;
+    }
+
+    // Singular extensions
+
+    /**
+     * @return move the search at this ply has to skip, null if none
+     */
+    public Move getExcludedMove(int ply) {
+        return excludedMoves[ply];
+    }
+
+    public void setExcludedMove(int ply, Move move) {
+        excludedMoves[ply] = move;
+    }
+
+    // Static evals
+
+    /**
+     * @return white positive eval stored at this ply, NaN if the ply had none (in check / not evaluated)
+     */
+    public double getStaticEval(int ply) {
+        return staticEvals[ply];
+    }
+
+    public void setStaticEval(int ply, double eval) {
+        staticEvals[ply] = eval;
+    }
+
+    // PV
+
+    /**
+     * Entering a node -> its line is empty until a move beats alpha
+     */
+    public void clearPv(int ply) {
+        pvLength[ply] = 0;
+    }
+
+    /**
+     * New best move at this ply -> the line becomes the move followed by the child's line
+     */
+    public void updatePv(int ply, Move move) {
+        pv[ply][0] = move;
+        int childLength = ply + 1 < MAX_PLY ? pvLength[ply + 1] : 0;
+        if (childLength > 0) {
+            System.arraycopy(pv[ply + 1], 0, pv[ply], 1, childLength);
+        }
+        pvLength[ply] = childLength + 1;
+    }
+
+    /**
+     * @return copy of the line found from this ply
+     */
+    public List<Move> getPv(int ply) {
+        return new ArrayList<>(Arrays.asList(pv[ply]).subList(0, pvLength[ply]));
+    }
+
+    public StaticExchange getStaticExchange() {
+        return staticExchange;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    public int getSelectiveDepth() {
+        return selectiveDepth;
+    }
+}
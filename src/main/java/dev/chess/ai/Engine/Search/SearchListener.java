@@ -0,0 +1,17 @@
+package dev.chess.ai.Engine.Search;
+
+/**
+ * Progress of a running search -> called once per finished iteration
+ * <p>
+ * Runs on the search thread, so implementations have to return quickly:
+ * hand the result to another thread (UI, logger) instead of doing the work here.
+ * {@link dev.chess.ai.Engine.ChessEngine#getProgressPublisher()} already does that
+ */
+@FunctionalInterface
+public interface SearchListener {
+
+    /**
+     * @param result best move, PV and counters after this iteration. Counters add up over the whole search
+     */
+    void onIteration(SearchResult result);
+}
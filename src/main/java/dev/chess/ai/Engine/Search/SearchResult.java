@@ -0,0 +1,127 @@
+package dev.chess.ai.Engine.Search;
+
+import dev.chess.ai.Engine.Move.Move;
+
+import java.util.List;
+
+/**
+ * What a finished search found -> best move, the line it expects and how much work it took
+ * <p>
+ * Score is white positive like the rest of the search, a forced mate is a {@link MateScore}.
+ * Everything is final so a result can be handed to another thread (UI, logging) as is
+ *
+ * https://www.chessprogramming.org/Principal_Variation
+ */
+public class SearchResult {
+
+    private final Move bestMove;
+    private final List<Move> principalVariation;
+    private final double score;
+    private final int depth;
+    private final int selectiveDepth;
+    private final long nodes;
+    private final long timeMillis;
+    private final int hashfull;
+
+    /**
+     * @param principalVariation starts with the best move, may be shorter than depth (cut by a table hit)
+     * @param hashfull used transposition table slots, per mille
+     */
+    public SearchResult(Move bestMove, List<Move> principalVariation, double score, int depth,
+                        int selectiveDepth, long nodes, long timeMillis, int hashfull) {
+        this.bestMove = bestMove;
+        this.principalVariation = List.copyOf(principalVariation);
+        this.score = score;
+        this.depth = depth;
+        this.selectiveDepth = selectiveDepth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.hashfull = hashfull;
+    }
+
+    public Move getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return the expected reply to the best move -> the move to ponder on, null if the line stops early
+     */
+    public Move getPonderMove() {
+        return principalVariation.size() > 1 ? principalVariation.get(1) : null;
+    }
+
+    public List<Move> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public boolean isMate() {
+        return MateScore.isMate(score);
+    }
+
+    /**
+     * @return moves until mate, positive when white mates and negative when black does. 0 without a mate
+     */
+    public int getMateIn() {
+        int moves = (MateScore.getPlies(score) + 1) / 2;
+        return score > 0 ? moves : -moves;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSelectiveDepth() {
+        return selectiveDepth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(timeMillis, 1);
+    }
+
+    public int getHashfull() {
+        return hashfull;
+    }
+
+    /**
+     * @return the PV as space separated UCI moves, e.g. "e2e4 e7e5 g1f3"
+     */
+    public String getPvString() {
+        StringBuilder builder = new StringBuilder();
+        for (Move move : principalVariation) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(move.toUCI());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * UCI info line style -> "depth 6 seldepth 14 score cp 35 nodes ... pv e2e4 ..."
+     * Like the cp score the mate count is white positive, "mate -2" -> black mates in 2
+     */
+    @Override
+    public String toString() {
+        String scoreText = isMate() ? "mate " + getMateIn() : "cp " + (int) score;
+        return "depth " + depth
+                + " seldepth " + selectiveDepth
+                + " score " + scoreText
+                + " nodes " + nodes
+                + " nps " + getNodesPerSecond()
+                + " hashfull " + hashfull
+                + " time " + timeMillis
+                + " pv " + getPvString();
+    }
+}
@@ -1,56 +1,173 @@
 package dev.chess.ai.Engine.Search.impl;
 
-import dev.chess.ai.Engine.Evaluation.impl.Material.MaterialEvaluator;
+import dev.chess.ai.Engine.Evaluation.impl.Endgame.EndgameRegistry;
 import dev.chess.ai.Engine.Move.Move;
 import dev.chess.ai.Engine.Move.MoveGenerator;
 import dev.chess.ai.Engine.Quiescence.QuiescenceSearch;
 import dev.chess.ai.Engine.Search.Algorithm;
+import dev.chess.ai.Engine.Search.MateScore;
+import dev.chess.ai.Engine.Search.SearchContext;
+import dev.chess.ai.Engine.Search.SearchResult;
 import dev.chess.ai.Engine.Evaluation.Evaluator;
 import dev.chess.ai.Engine.Table.TranspositionTable;
 import dev.chess.ai.Engine.Table.TranspositionTableEntry;
 import dev.chess.ai.Simulation.Board;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 
 /**
+ * Killers, history, move lists and counters live in the thread's {@link SearchContext}.
+ * The transposition table is the only state shared between searches
+ * <p>
  * https://www.youtube.com/watch?v=l-hh51ncgDI
  */
 public class AlphaBetaAlgorithm extends Algorithm {
 
+    private static final int DEFAULT_TABLE_SIZE = 1_000_000; // 1 million entries
+
+    // Singular extensions -> below this depth the check costs more than the extension finds
+    private static final int SINGULAR_MIN_DEPTH = 4;
+    // How far every other move has to stay below the table score, per ply of depth
+    private static final int SINGULAR_MARGIN = 15;
+
     protected QuiescenceSearch quiescenceSearch;
-    private final MaterialEvaluator materialEvaluator;
     private final TranspositionTable transpositionTable;
 
-    // Cache moves that might cause beta cutoffs
-    private final Move[][] killerMoves = new Move[64][2];
-    private final int[][] historyScores = new int[64][64];
-
     // I get the vibe this could be done with a tree
     // but that sounds like it would use an insane amount of RAM
     public AlphaBetaAlgorithm(Evaluator evaluator, MoveGenerator moveGenerator) {
+        this(evaluator, moveGenerator, new TranspositionTable(DEFAULT_TABLE_SIZE));
+    }
+
+    /**
+     * @param transpositionTable can be shared with other algorithms / threads searching the same game
+     */
+    public AlphaBetaAlgorithm(Evaluator evaluator, MoveGenerator moveGenerator, TranspositionTable transpositionTable) {
         super(evaluator, moveGenerator);
-        this.quiescenceSearch = new QuiescenceSearch(evaluator, moveGenerator);
-        this.materialEvaluator = new MaterialEvaluator();
-        this.transpositionTable = new TranspositionTable(1_000_000); // 1 million entries
+        this.transpositionTable = transpositionTable;
+        this.quiescenceSearch = new QuiescenceSearch(evaluator, moveGenerator, transpositionTable);
     }
 
     @Override
     public Move findBestMove(Board board, boolean isWhite, int depth) {
+        return search(board, isWhite, depth).getBestMove();
+    }
+
+    /**
+     * Iterative deepening -> depth 1, 2, ... up to depth. Every iteration is a full search of its own,
+     * the previous one's best move is tried first and its table entries / killers / history order the rest,
+     * so all the shallow iterations together usually cost less than the ordering they buy.
+     * Each finished iteration goes to the listeners, see {@link #addListener}
+     * <p>
+     * {@link #stop()} abandons the iteration in progress -> the result is the last one that finished
+     * <p>
+     * https://www.chessprogramming.org/Iterative_Deepening
+     */
+    @Override
+    public SearchResult search(Board board, boolean isWhite, int depth, BooleanSupplier stopSignal) {
+        return searchLines(board, isWhite, depth, 1, stopSignal).get(0);
+    }
+
+    /**
+     * MultiPV -> every iteration searches the root once per line, each time without the moves
+     * earlier lines already took. Line k is the best move among what's left, with an exact score
+     * since the root never narrows its window. All lines share the table and the killers / history,
+     * so lines after the first mostly hit entries the first one left behind
+     * <p>
+     * https://www.chessprogramming.org/Principal_Variation#MultiPV
+     */
+    @Override
+    public List<SearchResult> searchMultiPv(Board board, boolean isWhite, int depth, int lines) {
+        return searchLines(board, isWhite, depth, Math.max(lines, 1), () -> false);
+    }
+
+    /**
+     * @return best line first, never empty -> a game over position gives one result without a move
+     */
+    private List<SearchResult> searchLines(Board board, boolean isWhite, int depth, int lines, BooleanSupplier stopSignal) {
+        long start = System.currentTimeMillis();
         resetNodeCounter();
 
-        for (int i = 0; i < killerMoves.length; i++) {
-            killerMoves[i][0] = null;
-            killerMoves[i][1] = null;
-            Arrays.fill(historyScores[i], 0);
+        // Pick up reloaded weights before the search, stored scores came from the old ones
+        if (board.refreshWeights()) {
+            transpositionTable.clear();
         }
 
-        List<Move> moves = moveGenerator.generateAllMoves(board, isWhite);
+        clearStop();
+        SearchContext context = getContext();
+        context.reset();
+        context.setStopSignal(() -> isStopRequested() || stopSignal.getAsBoolean());
+
+        List<SearchResult> results = new ArrayList<>();
+        List<Move> excluded = new ArrayList<>(lines);
+        for (int iteration = 1; iteration <= Math.max(depth, 1); iteration++) {
+            List<SearchResult> iterationResults = new ArrayList<>(lines);
+            excluded.clear();
+
+            for (int line = 0; line < lines; line++) {
+                Move previousBest = line < results.size() ? results.get(line).getBestMove() : null;
+                SearchResult lineResult = searchRoot(context, board, isWhite, iteration, previousBest, excluded, start);
+
+                // stopped inside depth 1 -> still need something to play
+                if (context.isStopped() || lineResult.getBestMove() == null) {
+                    if (line == 0 || (context.isStopped() && results.isEmpty())) {
+                        iterationResults.add(lineResult);
+                    }
+                    break;
+                }
+
+                iterationResults.add(lineResult);
+                excluded.add(lineResult.getBestMove());
+            }
+
+            // half searched iteration -> its scores don't mean anything, keep the last complete one
+            if (context.isStopped()) {
+                if (results.isEmpty()) {
+                    results = iterationResults;
+                }
+                break;
+            }
+
+            results = iterationResults;
+            notifyIteration(results.get(0));
+
+            // nothing to play, or a forced mate -> searching deeper gives the same answer
+            SearchResult best = results.get(0);
+            if (best.getBestMove() == null || (lines == 1 && best.isMate())) {
+                break;
+            }
+        }
+
+        nodesSearched = (int) Math.min(Integer.MAX_VALUE, context.getNodes());
+        lastResult = results.get(0);
+        return results;
+    }
+
+    /**
+     * Root of one iteration. The PV comes from the context's triangular table, row 0 after the last root move
+     *
+     * @param previousBest best move of the last iteration, searched first. null on the first one
+     * @param excluded root moves earlier MultiPV lines already took
+     */
+    private SearchResult searchRoot(SearchContext context, Board board, boolean isWhite, int depth, Move previousBest,
+                                    List<Move> excluded, long start) {
+        context.visit(0, false);
+        context.clearPv(0);
+
+        List<Move> moves = moveGenerator.generateAllMoves(board, isWhite, context.getMoveBuffer(0));
+        moves.removeAll(excluded);
         if (moves.isEmpty()) {
-            return null; // game over -> checkmate / stalemate already happened
+            // game over -> checkmate / stalemate already happened (or every move already has a line)
+            return new SearchResult(null, List.of(), Double.NaN, depth, 0, context.getNodes(),
+                    System.currentTimeMillis() - start, transpositionTable.getHashfull());
         }
 
-        sortMoves(board, moves, depth);
+        sortMoves(context, board, moves, 0);
+        if (previousBest != null && moves.remove(previousBest)) {
+            moves.add(0, previousBest);
+        }
 
         Move bestMove = null;
         double bestScore = isWhite ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
@@ -63,8 +180,10 @@ public class AlphaBetaAlgorithm extends Algorithm {
             board.movePiece(move);
 
             double score = alphaBeta(
+                    context,
                     board,
                     depth - 1,
+                    1,
                     alpha,
                     beta,
                     !isWhite
@@ -72,63 +191,128 @@ public class AlphaBetaAlgorithm extends Algorithm {
 
             board.undoMove(move);
 
+            if (context.isStopped()) {
+                if (bestMove == null) {
+                    bestMove = move;
+                    bestScore = Double.NaN;
+                    context.updatePv(0, move);
+                }
+                break;
+            }
+
             // Maximizing player (White)
+            // the first move is always taken -> when every move gets mated there is still something to play
             if (isWhite) { // Starting at -infinity (max eval)
-                if (score > bestScore) {
+                if (score > bestScore || bestMove == null) {
                     bestScore = score;
                     bestMove = move;
+                    context.updatePv(0, move);
                 }
                 alpha = Math.max(alpha, bestScore);
             } else { // Minimizing player (Black)
                 // starting at infinity (minimum eval)
-                if (score < bestScore) {
+                if (score < bestScore || bestMove == null) {
                     bestScore = score;
                     bestMove = move;
+                    context.updatePv(0, move);
                 }
                 beta = Math.min(beta, bestScore);
             }
         }
 
-        return bestMove;
+        return new SearchResult(bestMove, context.getPv(0), bestScore, depth, context.getSelectiveDepth(),
+                context.getNodes(), System.currentTimeMillis() - start, transpositionTable.getHashfull());
     }
 
     /**
      * When alpha >= beta -> we can stop early (pruning)
+     * <p>
+     * Mates are {@link MateScore}s -> mated at ply p is MATE - p, so shorter mates win and
+     * the table stores them relative to the node.
+     * Two extensions spend the depth where the tactics are:
+     * being in check searches one ply deeper (only a few replies, and skipping a check is how
+     * the horizon hides a mate), and a singular table move gets one more ply too
+     *
+     * @param ply distance from the root -> index into the context's stacks
      */
-    private double alphaBeta(Board board, int depth, double alpha, double beta, boolean isWhiteTurn) {
-        nodesSearched++;
+    private double alphaBeta(SearchContext context, Board board, int depth, int ply, double alpha, double beta, boolean isWhiteTurn) {
+        context.visit(ply, false);
+        context.clearPv(ply);
+        if (context.isStopped()) {
+            return 0;
+        }
+
+        // nobody can mate anymore -> nothing below this node matters
+        if (EndgameRegistry.isDraw(board)) {
+            return 0;
+        }
+
+        // Mate distance pruning -> the best this node can do is mate next move, the worst is being mated now.
+        // When a shorter mate is already known above, nothing in here can change the result
+        // https://www.chessprogramming.org/Mate_Distance_Pruning
+        if (isWhiteTurn) {
+            alpha = Math.max(alpha, -MateScore.mateIn(ply));
+            beta = Math.min(beta, MateScore.mateIn(ply + 1));
+        } else {
+            alpha = Math.max(alpha, -MateScore.mateIn(ply + 1));
+            beta = Math.min(beta, MateScore.mateIn(ply));
+        }
+        if (alpha >= beta) {
+            return isWhiteTurn ? alpha : beta;
+        }
+
+        // singular check of the parent node -> same position, different move list, so no table cutoffs / stores
+        Move excludedMove = context.getExcludedMove(ply);
 
         long zobristHash = board.getZobristHash();
         TranspositionTableEntry entry = transpositionTable.probe(zobristHash);
-        if (entry != null && entry.depth >= depth) {
+        if (entry != null && entry.depth >= depth && excludedMove == null) {
+            double entryScore = MateScore.fromTable(entry.score, ply);
             if (entry.flag == 0) {
-                return entry.score;
+                return entryScore;
             } else if (entry.flag == 1) {
-                alpha = Math.max(alpha, entry.score);
+                alpha = Math.max(alpha, entryScore);
             } else if (entry.flag == 2) {
-                beta = Math.min(beta, entry.score);
+                beta = Math.min(beta, entryScore);
             }
 
             if (alpha >= beta) {
-                return entry.score;
+                return entryScore;
             }
         }
 
-        if (depth == 0) {
+        // Check extension -> don't drop into quiescence in check either
+        boolean inCheck = moveGenerator.isKingInCheck(board, isWhiteTurn);
+        if (inCheck) {
+            depth++;
+        }
+
+        if (depth == 0 || ply >= SearchContext.MAX_PLY - 1) {
             //return evaluator.evaluate(board);
-            return quiescenceSearch.searchCaptures(board, alpha, beta, isWhiteTurn); // better search
+            return quiescenceSearch.searchCaptures(context, board, alpha, beta, isWhiteTurn, ply); // better search
         }
 
-        List<Move> moves = moveGenerator.generateAllMoves(board, isWhiteTurn);
+        // before this node fills its move buffer, the check searches the same ply
+        Move singularMove = excludedMove == null ? findSingularMove(context, board, entry, depth, ply, isWhiteTurn) : null;
+
+        List<Move> moves = moveGenerator.generateAllMoves(board, isWhiteTurn, context.getMoveBuffer(ply));
         if (moves.isEmpty()) {
-            if (moveGenerator.isKingInCheck(board, isWhiteTurn)) {
-                return isWhiteTurn ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            if (inCheck) {
+                return isWhiteTurn ? -MateScore.mateIn(ply) : MateScore.mateIn(ply);
             }
             return 0;
         }
 
+        if (excludedMove != null) {
+            moves.remove(excludedMove);
+            if (moves.isEmpty()) {
+                // the table move was the only one -> as singular as it gets
+                return isWhiteTurn ? alpha : beta;
+            }
+        }
+
         // Filter for good moves first -> finds our cutoff thresholds earlier
-        sortMoves(board, moves, depth);
+        sortMoves(context, board, moves, ply);
 
         double originalAlpha = alpha;
         double originalBeta = beta; // this will cleanup flag logic
@@ -137,77 +321,121 @@ public class AlphaBetaAlgorithm extends Algorithm {
         if (isWhiteTurn) {
             double maxScore = Double.NEGATIVE_INFINITY;
             for (Move move : moves) {
+                int extension = move.equals(singularMove) ? 1 : 0;
                 board.movePiece(move);
-                double score = alphaBeta(board, depth - 1, alpha, beta, false);
+                double score = alphaBeta(context, board, depth - 1 + extension, ply + 1, alpha, beta, false);
                 board.undoMove(move);
 
+                if (context.isStopped()) {
+                    return 0; // unwind without touching the table / killers
+                }
+
                 if (score > maxScore) {
                     maxScore = score;
                     bestMove = move;
                 }
 
+                if (score > alpha) {
+                    context.updatePv(ply, move);
+                }
                 alpha = Math.max(alpha, score);
 
                 if (beta <= alpha) {
                     if (move.getCapturedPiece() == null) {
-                        // update killer move
-                        if (depth >= 0 && depth < killerMoves.length) {
-                            if (!move.equals(killerMoves[depth][0])) {
-                                killerMoves[depth][1] = killerMoves[depth][0];
-                                killerMoves[depth][0] = move;
-                            }
-                        }
-
-                        // update history
-                        int from = move.getFromRow() * 8 + move.getFromCol();
-                        int to = move.getToRow() * 8 + move.getToCol();
-                        historyScores[from][to] += depth * depth;
+                        // update killer move + history
+                        context.storeKiller(ply, move);
+                        context.addHistory(move, depth);
                     }
                     break;
                 }
             }
 
-            byte flag = maxScore <= originalAlpha ? (byte) 2 : maxScore >= beta ? (byte) 1 : (byte) 0;
-            transpositionTable.store(zobristHash, (int) maxScore, depth, flag, bestMove, (byte) 0);
+            if (excludedMove == null) {
+                byte flag = maxScore <= originalAlpha ? (byte) 2 : maxScore >= beta ? (byte) 1 : (byte) 0;
+                transpositionTable.store(zobristHash, (int) MateScore.toTable(maxScore, ply), depth, flag, bestMove, (byte) 0);
+            }
 
             return maxScore;
         } else {
             double minScore = Double.POSITIVE_INFINITY;
             for (Move move : moves) {
+                int extension = move.equals(singularMove) ? 1 : 0;
                 board.movePiece(move);
-                double score = alphaBeta(board, depth - 1, alpha, beta, true);
+                double score = alphaBeta(context, board, depth - 1 + extension, ply + 1, alpha, beta, true);
                 board.undoMove(move);
 
+                if (context.isStopped()) {
+                    return 0;
+                }
+
                 if (score < minScore) {
                     minScore = score;
                     bestMove = move;
                 }
 
+                if (score < beta) {
+                    context.updatePv(ply, move);
+                }
                 beta = Math.min(beta, score);
 
                 if (beta <= alpha) {
                     if (move.getCapturedPiece() == null) {
-                        if (depth >= 0 && depth < killerMoves.length) {
-                            if (!move.equals(killerMoves[depth][0])) {
-                                killerMoves[depth][1] = killerMoves[depth][0];
-                                killerMoves[depth][0] = move;
-                            }
-                        }
-
-                        int from = move.getFromRow() * 8 + move.getFromCol();
-                        int to = move.getToRow() * 8 + move.getToCol();
-                        historyScores[from][to] += depth * depth;
+                        context.storeKiller(ply, move);
+                        context.addHistory(move, depth);
                     }
                     break;
                 }
             }
-            byte flag = minScore >= originalBeta ? (byte) 2 : minScore <= alpha ? (byte) 1 : (byte) 0;
-            transpositionTable.store(zobristHash, (int) minScore, depth, flag, bestMove, (byte) 0);
+            // minimizing -> failing low (<= alpha) means black found a refutation, the score is an upper bound
+            if (excludedMove == null) {
+                byte flag = minScore <= originalAlpha ? (byte) 2 : minScore >= originalBeta ? (byte) 1 : (byte) 0;
+                transpositionTable.store(zobristHash, (int) MateScore.toTable(minScore, ply), depth, flag, bestMove, (byte) 0);
+            }
 
             return minScore;
         }
     }
 
+    /**
+     * Singular extension -> when the table move beats every other move by a margin, the position
+     * hinges on it (only recapture, only defence) and it gets searched one ply deeper.
+     * Checked with a reduced null window search of the same node with the table move left out:
+     * if nothing else gets within the margin of the table score, the move is singular
+     * <p>
+     * Only when the entry is deep enough to trust and its score is at least as good as stored
+     * (exact, or a bound in the side to move's favour). Mate scores are skipped, they don't need it
+     * <p>
+     * https://www.chessprogramming.org/Singular_Extensions
+     *
+     * @return the move to extend, null if there is none
+     */
+    private Move findSingularMove(SearchContext context, Board board, TranspositionTableEntry entry, int depth, int ply, boolean isWhiteTurn) {
+        if (depth < SINGULAR_MIN_DEPTH || entry == null || entry.bestMove == null || entry.depth < depth - 3) {
+            return null;
+        }
+
+        // the entry object gets reused by the table, read it before searching
+        Move tableMove = entry.bestMove;
+        double entryScore = MateScore.fromTable(entry.score, ply);
+        byte goodBound = isWhiteTurn ? TranspositionTableEntry.LOWER_BOUND : TranspositionTableEntry.UPPER_BOUND;
+        if ((entry.flag != TranspositionTableEntry.EXACT && entry.flag != goodBound) || MateScore.isMate(entryScore)) {
+            return null;
+        }
+
+        double margin = SINGULAR_MARGIN * depth;
+        double singularBeta = isWhiteTurn ? entryScore - margin : entryScore + margin;
+
+        context.setExcludedMove(ply, tableMove);
+        double score = isWhiteTurn
+                ? alphaBeta(context, board, (depth - 1) / 2, ply, singularBeta - 1, singularBeta, true)
+                : alphaBeta(context, board, (depth - 1) / 2, ply, singularBeta, singularBeta + 1, false);
+        context.setExcludedMove(ply, null);
+        context.clearPv(ply); // the check wrote this node's line
+
+        boolean singular = isWhiteTurn ? score < singularBeta : score > singularBeta;
+        return singular && !context.isStopped() ? tableMove : null;
+    }
+
     /**
      * Sort moves to improve alpha-beta pruning efficiency
      * <p>
@@ -218,10 +446,10 @@ public class AlphaBetaAlgorithm extends Algorithm {
      * @param board current board state
      * @param moves list of moves to sort (modified in place)
      */
-    private void sortMoves(Board board, List<Move> moves, int depth) { // TODO: USE {@link MoveOrdering} INSTEAD
+    private void sortMoves(SearchContext context, Board board, List<Move> moves, int ply) { // TODO: USE {@link MoveOrdering} INSTEAD
         moves.sort((m1, m2) -> {
-            int score1 = getMoveOrderingScore(board, m1, depth);
-            int score2 = getMoveOrderingScore(board, m2, depth);
+            int score1 = getMoveOrderingScore(context, board, m1, ply);
+            int score2 = getMoveOrderingScore(context, board, m2, ply);
 
             return Integer.compare(score2, score1); // Higher score first
         });
@@ -232,7 +460,7 @@ public class AlphaBetaAlgorithm extends Algorithm {
      * Higher scores are searched first to maximize alpha-beta cutoffs
      */
     // TODO: Move to {@link MoveOrdering}
-    private int getMoveOrderingScore(Board board, Move move, int depth) {
+    private int getMoveOrderingScore(SearchContext context, Board board, Move move, int ply) {
         int score = 0;
 
         // if we found this was our best move last time -> try it first
@@ -243,12 +471,12 @@ public class AlphaBetaAlgorithm extends Algorithm {
 
         // Prioritize captures -> use MVV-LVA
         if (move.getCapturedPiece() != null) {
-            int victimValue = materialEvaluator.getPieceValue(move.getCapturedPiece());
-            int attackerValue = materialEvaluator.getPieceValue(board.getPiece(move.getFromRow(), move.getFromCol()));
+            int victimValue = board.getWeights().getMaterial(move.getCapturedPiece().getType());
+            int attackerValue = board.getWeights().getMaterial(board.getPiece(move.getFromRow(), move.getFromCol()).getType());
             score = 10000 + (victimValue * 10 - attackerValue);
 
             // MVV-LVA -> prefer capturing valuable pieces with less valuable pieces
-            int seeScore = quiescenceSearch.staticExchangeEvaluation(board, move, board.getPiece(move.getFromRow(), move.getFromCol()).isWhite());
+            int seeScore = context.getStaticExchange().evaluate(board, move);
             if (seeScore < 0) {
                 // This is a losing capture e.g -> (QxP defended by pawn)
                 // Score it low but not last
@@ -259,25 +487,19 @@ public class AlphaBetaAlgorithm extends Algorithm {
         }
 
         // "killer" moves
-        if (depth >= 0 && depth < killerMoves.length) {
-            if (move.equals(killerMoves[depth][0])) {
-                return 9000; // Kill 1
-            } else if (move.equals(killerMoves[depth][1])) {
-                return 8000; // Killer 2
-            }
-        }
-
-        if (score == 0) {
-            int from = move.getFromRow() * 8 + move.getFromCol();
-            int to = move.getToRow() * 8 + move.getToCol();
-            score = historyScores[from][to];
+        int killer = context.getKillerSlot(ply, move);
+        if (killer == 1) {
+            return 9000; // Kill 1
+        } else if (killer == 2) {
+            return 8000; // Killer 2
         }
 
-        int from = move.getFromRow() * 8 + move.getFromCol();
-        int to = move.getToRow() * 8 + move.getToCol();
-        score = historyScores[from][to];
+        return context.getHistory(move);
+    }
 
-        return score;
+    @Override
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
     }
 
     @Override
@@ -22,6 +22,7 @@ public class MinimaxAlgorithm extends Algorithm {
     @Override
     public Move findBestMove(Board board, boolean isWhite, int depth) {
         resetNodeCounter();
+        board.refreshWeights();
 
         List<Move> moves = moveGenerator.generateAllMoves(board, isWhite);
         if (moves.isEmpty()) {
@@ -0,0 +1,27 @@
+package dev.chess.ai.Engine.Table;
+
+/**
+ * Cached pawn structure for one pawn placement. Squares are row * 8 + col, same as the zobrist keys
+ *
+ * Entries are preallocated by {@link PawnHashTable} and overwritten in place -> no allocation in search
+ *
+ * https://www.chessprogramming.org/Pawn_Hash_Table
+ */
+public class PawnHashEntry {
+
+    public long pawnHash;
+
+    // white - black, centipawns
+    public int structureScore; // isolated / doubled / backward / connected
+    public int passedScore;    // passed pawn bonuses -> applied by the evaluator when it wants them
+
+    // bit per square
+    public long whitePassed;
+    public long blackPassed;
+    public long whiteAttacks;   // squares white pawns attack right now
+    public long blackAttacks;
+    public long whiteAttackSpan; // squares white pawns could ever attack by pushing
+    public long blackAttackSpan;
+
+    boolean valid;
+}
@@ -0,0 +1,65 @@
+package dev.chess.ai.Engine.Table;
+
+/**
+ * Small always-replace table keyed by {@link dev.chess.ai.Simulation.Board#getPawnHash()}
+ *
+ * Pawns barely move during a search compared to pieces, so almost every probe hits
+ * and pawn evaluation only has to be done once per structure
+ *
+ * https://www.chessprogramming.org/Pawn_Hash_Table
+ */
+public class PawnHashTable {
+
+    private final PawnHashEntry[] table;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    /**
+     * @param size number of entries, rounded up to a power of two
+     */
+    public PawnHashTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.table = new PawnHashEntry[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            table[i] = new PawnHashEntry();
+        }
+    }
+
+    /**
+     * @return the cached entry for this pawn structure, or null
+     */
+    public PawnHashEntry probe(long pawnHash) {
+        probes++;
+        PawnHashEntry entry = table[(int) pawnHash & mask];
+        if (entry.valid && entry.pawnHash == pawnHash) {
+            hits++;
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Claim the slot for this pawn structure. The caller fills in the fields
+     */
+    public PawnHashEntry replace(long pawnHash) {
+        PawnHashEntry entry = table[(int) pawnHash & mask];
+        entry.pawnHash = pawnHash;
+        entry.valid = true;
+        return entry;
+    }
+
+    public void clear() {
+        for (PawnHashEntry entry : table) {
+            entry.valid = false;
+        }
+        probes = 0;
+        hits = 0;
+    }
+
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+}
@@ -48,11 +48,22 @@ public class TranspositionTable {
      * @param age
      */
     public void store(long zobristHash, int score, int depth, byte flag, Move bestMove, byte age) {
+        store(zobristHash, score, depth, flag, bestMove, age, Double.NaN);
+    }
+
+    /**
+     * @param staticEval white positive static evaluation, NaN if unknown -> lets quiescence skip evaluating again
+     */
+    public void store(long zobristHash, int score, int depth, byte flag, Move bestMove, byte age, double staticEval) {
         int index = (int) (Math.abs(zobristHash) % size);
         TranspositionTableEntry existing = table[index];
 
         if (existing == null || depth >= existing.depth) {
-            table[index] = new TranspositionTableEntry(zobristHash, score, depth, flag, bestMove, age);
+            TranspositionTableEntry entry = new TranspositionTableEntry(zobristHash, score, depth, flag, bestMove, age);
+            // same position searched again -> keep the eval it already had
+            entry.staticEval = Double.isNaN(staticEval) && existing != null && existing.zobristHash == zobristHash
+                    ? existing.staticEval : staticEval;
+            table[index] = entry;
         }
     }
 
@@ -60,4 +71,29 @@ public class TranspositionTable {
         Arrays.fill(table, null);
     }
 
+    /**
+     * Raw slots, some of which may be null. Used by {@link TranspositionTableSnapshot}
+     */
+    TranspositionTableEntry[] getEntries() {
+        return table;
+    }
+
+    /**
+     * Filled slots per mille, counted over the first thousand slots like UCI hashfull
+     */
+    public int getHashfull() {
+        int sample = Math.min(1000, size);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (table[i] != null) {
+                used++;
+            }
+        }
+        return used * 1000 / Math.max(sample, 1);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
 }
@@ -30,10 +30,13 @@ public class TranspositionTableEntry {
 
     public byte age;
 
+    // White positive static evaluation of the position, NaN if it wasn't computed exactly
+    public double staticEval = Double.NaN;
+
     // UTILITY
-    private static final byte EXACT = 0;
-    private static final byte LOWER_BOUND = 1;
-    private static final byte UPPER_BOUND = 2;
+    public static final byte EXACT = 0;
+    public static final byte LOWER_BOUND = 1;
+    public static final byte UPPER_BOUND = 2;
 
     public TranspositionTableEntry(long zobristHash, int score, int depth, byte flag, Move bestMove, byte age) {
         this.zobristHash = zobristHash;
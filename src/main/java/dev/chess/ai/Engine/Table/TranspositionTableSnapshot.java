@@ -0,0 +1,149 @@
+package dev.chess.ai.Engine.Table;
+
+import dev.chess.ai.Engine.Move.Move;
+import dev.chess.ai.Util.Board.ZobristHasher;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Dumps the deeper entries of a {@link TranspositionTable} to disk so the next game / session
+ * doesn't have to recompute the same opening trees
+ * <p>
+ * The header stores the {@link ZobristHasher} version, seed and key checksum. If any of them
+ * changed the hashes in the file no longer mean anything, so the snapshot is ignored.
+ * Same for the eval fingerprint -> scores from another evaluator or other weights would cut off
+ * searches with numbers the current evaluation never gives
+ * <p>
+ * Layout (big endian, {@link DataOutputStream}):
+ * magic, format version, zobrist version, zobrist seed, key checksum, eval fingerprint, entry count
+ * then per entry -> hash, score, depth, flag, age, best move (-1 if none)
+ */
+public class TranspositionTableSnapshot {
+
+    private static final int MAGIC = 0x43545453; // "CTTS"
+    private static final int FORMAT_VERSION = 3; // 2 -> mate distance in mate scores, 3 -> eval fingerprint
+
+    // Entries shallower than this are cheap to recompute -> not worth the disk space
+    public static final int DEFAULT_MIN_DEPTH = 2;
+
+    private TranspositionTableSnapshot() {
+
+    }
+
+    /**
+     * Write every entry with depth >= minDepth
+     *
+     * @param evalFingerprint identifies the evaluation the scores came from, see
+     *                        {@link dev.chess.ai.Engine.Evaluation.Evaluator#getFingerprint()}
+     * @return number of entries written
+     */
+    public static int save(TranspositionTable table, Path path, int minDepth, long evalFingerprint) throws IOException {
+        TranspositionTableEntry[] entries = table.getEntries();
+
+        int count = 0;
+        for (TranspositionTableEntry entry : entries) {
+            if (entry != null && entry.depth >= minDepth) {
+                count++;
+            }
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(ZobristHasher.VERSION);
+            out.writeLong(ZobristHasher.SEED);
+            out.writeLong(ZobristHasher.getKeyChecksum());
+            out.writeLong(evalFingerprint);
+            out.writeInt(count);
+
+            for (TranspositionTableEntry entry : entries) {
+                if (entry == null || entry.depth < minDepth) {
+                    continue;
+                }
+                out.writeLong(entry.zobristHash);
+                out.writeInt(entry.score);
+                out.writeByte(entry.depth);
+                out.writeByte(entry.flag);
+                out.writeByte(entry.age);
+                out.writeShort(encodeMove(entry.bestMove));
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Store every entry of the snapshot into the table. Normal replacement rules apply,
+     * so entries already in the table from a deeper search are kept
+     *
+     * @param evalFingerprint has to match the one the file was saved with
+     * @return number of entries read, or 0 if the file is missing or was written with different keys / evaluation
+     */
+    public static int load(TranspositionTable table, Path path, long evalFingerprint) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return 0;
+            }
+
+            // Stale keys -> every hash in here points to a different position now
+            if (in.readInt() != ZobristHasher.VERSION
+                    || in.readLong() != ZobristHasher.SEED
+                    || in.readLong() != ZobristHasher.getKeyChecksum()) {
+                return 0;
+            }
+
+            // Scores of another evaluation -> exact entries would return the wrong numbers
+            if (in.readLong() != evalFingerprint) {
+                return 0;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long hash = in.readLong();
+                int score = in.readInt();
+                int depth = in.readByte();
+                byte flag = in.readByte();
+                byte age = in.readByte();
+                Move bestMove = decodeMove(in.readShort());
+
+                table.store(hash, score, depth, flag, bestMove, age);
+            }
+            return count;
+        }
+    }
+
+    // from square in the high 6 bits, to square in the low 6 bits
+    private static short encodeMove(Move move) {
+        if (move == null) {
+            return -1;
+        }
+        int from = move.getFromRow() * 8 + move.getFromCol();
+        int to = move.getToRow() * 8 + move.getToCol();
+        return (short) ((from << 6) | to);
+    }
+
+    // Captured piece is unknown here -> only used for ordering which compares squares
+    private static Move decodeMove(short encoded) {
+        if (encoded < 0) {
+            return null;
+        }
+        int from = (encoded >> 6) & 63;
+        int to = encoded & 63;
+        return new Move(from / 8, from % 8, to / 8, to % 8);
+    }
+}
@@ -0,0 +1,304 @@
+package dev.chess.ai.Engine.Tuning;
+
+import dev.chess.ai.Engine.Evaluation.EvaluationWeights;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Fits the hand written evaluation weights to game results
+ * <p>
+ * Every position is labeled with the result of the game it came from. The eval is squashed to an
+ * expected score with sigmoid(K * eval) and the mean squared error against the results is minimized.
+ * K is fitted first so the error only measures how well the weights rank positions
+ * <p>
+ * Positions are loaded once into a {@link TuningDataset}. The loss and gradient are then sums over
+ * all positions -> computed with parallel streams across every core
+ * <p>
+ * Usage: TexelTuner positions.epd [output] [epochs] [learning rate]
+ * Lines are FEN / EPD with the result anywhere on the line: 1-0, 0-1, 1/2-1/2 or [1.0] [0.5] [0.0]
+ * Output defaults to {@link EvaluationWeights#getPath()} which is read at startup and by {@link EvaluationWeights#reload()}
+ *
+ * https://www.chessprogramming.org/Texel%27s_Tuning_Method
+ */
+public class TexelTuner {
+
+    private static final int BATCH_SIZE = 1 << 16; // lines parsed in parallel at once while loading
+    private static final int DEFAULT_EPOCHS = 500;
+    private static final double DEFAULT_LEARNING_RATE = 1.0;
+    private static final int LOG_INTERVAL = 25;
+
+    // Adam
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+
+    private final Map<String, int[]> initialWeights;
+    private final Map<String, Integer> offsets = new LinkedHashMap<>();
+    private final double[] weights;
+    private final TuningDataset dataset = new TuningDataset();
+    private final ThreadLocal<TuningFeatures> features;
+
+    private double k = 1.0;
+
+    public TexelTuner() {
+        this.initialWeights = EvaluationWeights.current().toFlat();
+
+        int count = 0;
+        for (Map.Entry<String, int[]> entry : initialWeights.entrySet()) {
+            offsets.put(entry.getKey(), count);
+            count += entry.getValue().length;
+        }
+        if (count > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many weights for the packed dataset: " + count);
+        }
+
+        this.weights = new double[count];
+        for (Map.Entry<String, int[]> entry : initialWeights.entrySet()) {
+            int offset = offsets.get(entry.getKey());
+            int[] values = entry.getValue();
+            for (int i = 0; i < values.length; i++) {
+                weights[offset + i] = values[i];
+            }
+        }
+
+        int weightCount = count;
+        this.features = ThreadLocal.withInitial(() -> new TuningFeatures(offsets, initialWeights, weightCount));
+    }
+
+    /**
+     * Read labeled positions. Lines without a result or with a bad FEN are skipped
+     *
+     * @return number of positions loaded
+     */
+    public int load(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                batch.add(line);
+                if (batch.size() == BATCH_SIZE) {
+                    addBatch(batch);
+                    batch.clear();
+                }
+            }
+            addBatch(batch);
+        }
+        return dataset.size();
+    }
+
+    private void addBatch(List<String> lines) {
+        // extraction is the slow part -> parallel, appending stays in file order
+        Sample[] samples = lines.parallelStream().map(this::parse).toArray(Sample[]::new);
+        for (Sample sample : samples) {
+            if (sample != null) {
+                dataset.add(sample.indices, sample.coefficients, sample.base, sample.result);
+            }
+        }
+    }
+
+    private Sample parse(String line) {
+        double result = parseResult(line);
+        if (Double.isNaN(result)) {
+            return null;
+        }
+        TuningFeatures extractor = features.get();
+        if (!extractor.extract(line)) {
+            return null;
+        }
+
+        // keep only the non zero coefficients -> a batch of dense rows would be hundreds of MB
+        double[] dense = extractor.getCoefficients();
+        int count = 0;
+        for (double coefficient : dense) {
+            if (coefficient != 0) {
+                count++;
+            }
+        }
+        short[] indices = new short[count];
+        float[] coefficients = new float[count];
+        for (int i = 0, n = 0; i < dense.length; i++) {
+            if (dense[i] != 0) {
+                indices[n] = (short) i;
+                coefficients[n++] = (float) dense[i];
+            }
+        }
+        return new Sample(indices, coefficients, extractor.getBase(), result);
+    }
+
+    static double parseResult(String line) {
+        if (line.contains("1/2-1/2") || line.contains("[0.5]")) {
+            return 0.5;
+        }
+        if (line.contains("1-0") || line.contains("[1.0]")) {
+            return 1.0;
+        }
+        if (line.contains("0-1") || line.contains("[0.0]")) {
+            return 0.0;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Mean squared error between sigmoid(K * eval) and the results
+     */
+    public double loss(double[] weights, double k) {
+        double sum = IntStream.range(0, dataset.size()).parallel().mapToDouble(i -> {
+            double error = dataset.getResult(i) - sigmoid(k, dataset.evaluate(i, weights));
+            return error * error;
+        }).sum();
+        return sum / dataset.size();
+    }
+
+    /**
+     * d loss / d weight for every weight. Each chunk of positions sums into its own array, then the arrays are added up
+     */
+    private double[] gradient(double[] weights, double k) {
+        int chunks = Runtime.getRuntime().availableProcessors() * 4;
+        int chunkSize = (dataset.size() + chunks - 1) / chunks;
+        double slope = k * Math.log(10) / 400;
+
+        return IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            double[] partial = new double[weights.length];
+            int end = Math.min(dataset.size(), (chunk + 1) * chunkSize);
+            for (int i = chunk * chunkSize; i < end; i++) {
+                double s = sigmoid(k, dataset.evaluate(i, weights));
+                // d/dw (r - s)^2 = -2 (r - s) * s (1 - s) * slope * coefficient
+                double scale = -2 * (dataset.getResult(i) - s) * s * (1 - s) * slope / dataset.size();
+                dataset.accumulate(i, scale, partial);
+            }
+            return partial;
+        }).reduce(new double[weights.length], (a, b) -> {
+            double[] sum = new double[a.length];
+            for (int i = 0; i < a.length; i++) {
+                sum[i] = a[i] + b[i];
+            }
+            return sum;
+        });
+    }
+
+    private static double sigmoid(double k, double eval) {
+        return 1.0 / (1.0 + Math.pow(10, -k * eval / 400));
+    }
+
+    /**
+     * Scan then refine K with the starting weights
+     */
+    public double fitK() {
+        double best = k;
+        double bestLoss = loss(weights, best);
+        double step = 0.5;
+        for (int round = 0; round < 6; round++) {
+            double center = best;
+            for (int i = -5; i <= 5; i++) {
+                double candidate = center + i * step;
+                if (candidate <= 0) {
+                    continue;
+                }
+                double candidateLoss = loss(weights, candidate);
+                if (candidateLoss < bestLoss) {
+                    bestLoss = candidateLoss;
+                    best = candidate;
+                }
+            }
+            step /= 5;
+        }
+        k = best;
+        return k;
+    }
+
+    /**
+     * Adam over all weights
+     */
+    public void optimize(int epochs, double learningRate) {
+        double[] m = new double[weights.length];
+        double[] v = new double[weights.length];
+
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            double[] gradient = gradient(weights, k);
+            for (int i = 0; i < weights.length; i++) {
+                m[i] = BETA1 * m[i] + (1 - BETA1) * gradient[i];
+                v[i] = BETA2 * v[i] + (1 - BETA2) * gradient[i] * gradient[i];
+                double mHat = m[i] / (1 - Math.pow(BETA1, epoch));
+                double vHat = v[i] / (1 - Math.pow(BETA2, epoch));
+                weights[i] -= learningRate * mHat / (Math.sqrt(vHat) + EPSILON);
+            }
+
+            if (epoch % LOG_INTERVAL == 0 || epoch == epochs) {
+                System.out.printf("Epoch %d loss %.6f%n", epoch, loss(weights, k));
+            }
+        }
+    }
+
+    /**
+     * @return the tuned weights rounded back to centipawns, keys from {@link EvaluationWeights#toFlat()}
+     */
+    public Map<String, int[]> getWeights() {
+        Map<String, int[]> tuned = new LinkedHashMap<>();
+        for (Map.Entry<String, int[]> entry : initialWeights.entrySet()) {
+            int offset = offsets.get(entry.getKey());
+            int[] values = new int[entry.getValue().length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (int) Math.round(weights[offset + i]);
+            }
+            tuned.put(entry.getKey(), values);
+        }
+        return tuned;
+    }
+
+    public TuningDataset getDataset() {
+        return dataset;
+    }
+
+    public double[] getWeightVector() {
+        return weights;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: TexelTuner <positions.epd> [output] [epochs] [learning rate]");
+            return;
+        }
+
+        Path input = Path.of(args[0]);
+        Path output = args.length > 1 ? Path.of(args[1]) : EvaluationWeights.getPath();
+        int epochs = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_EPOCHS;
+        double learningRate = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_LEARNING_RATE;
+
+        TexelTuner tuner = new TexelTuner();
+
+        long start = System.currentTimeMillis();
+        int positions = tuner.load(input);
+        System.out.println("Loaded " + positions + " positions in " + (System.currentTimeMillis() - start) + "ms");
+        if (positions == 0) {
+            return;
+        }
+
+        System.out.printf("K = %.4f, starting loss %.6f%n", tuner.fitK(), tuner.loss(tuner.weights, tuner.k));
+        tuner.optimize(epochs, learningRate);
+
+        EvaluationWeights.current().withFlat(tuner.getWeights()).save(output);
+        System.out.println("Wrote weights to " + output);
+    }
+
+    private static final class Sample {
+        final short[] indices;
+        final float[] coefficients;
+        final double base;
+        final double result;
+
+        Sample(short[] indices, float[] coefficients, double base, double result) {
+            this.indices = indices;
+            this.coefficients = coefficients;
+            this.base = base;
+            this.result = result;
+        }
+    }
+}
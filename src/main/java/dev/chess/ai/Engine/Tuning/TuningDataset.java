@@ -0,0 +1,81 @@
+package dev.chess.ai.Engine.Tuning;
+
+import java.util.Arrays;
+
+/**
+ * Labeled positions packed for the tuner
+ * <p>
+ * A position isn't kept as a board -> only its non zero weight coefficients ({@link TuningFeatures})
+ * as (short index, float coefficient) pairs in flat arrays, plus the untuned base score and the result.
+ * Around 60 coefficients per position so a few million positions fit in a normal heap, and evaluating
+ * one is a short sparse dot product instead of a board setup + full evaluation
+ */
+public class TuningDataset {
+
+    private int size;
+    private int[] starts = new int[1024 + 1]; // position i -> [starts[i], starts[i + 1])
+    private float[] bases = new float[1024];
+    private byte[] results = new byte[1024]; // 0 loss, 1 draw, 2 win (white's view)
+
+    private int entryCount;
+    private short[] indices = new short[1 << 16];
+    private float[] coefficients = new float[1 << 16];
+
+    public TuningDataset() {
+
+    }
+
+    /**
+     * @param indices weight index of each non zero coefficient
+     * @param result 0 black won, 0.5 draw, 1 white won
+     */
+    public void add(short[] indices, float[] coefficients, double base, double result) {
+        if (size + 1 == bases.length) {
+            int capacity = bases.length * 2;
+            starts = Arrays.copyOf(starts, capacity + 1);
+            bases = Arrays.copyOf(bases, capacity);
+            results = Arrays.copyOf(results, capacity);
+        }
+
+        while (entryCount + indices.length > this.indices.length) {
+            this.indices = Arrays.copyOf(this.indices, this.indices.length * 2);
+            this.coefficients = Arrays.copyOf(this.coefficients, this.coefficients.length * 2);
+        }
+        System.arraycopy(indices, 0, this.indices, entryCount, indices.length);
+        System.arraycopy(coefficients, 0, this.coefficients, entryCount, coefficients.length);
+        entryCount += indices.length;
+
+        bases[size] = (float) base;
+        results[size] = (byte) Math.round(result * 2);
+        size++;
+        starts[size] = entryCount;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return white positive evaluation of position i with these weights
+     */
+    public double evaluate(int position, double[] weights) {
+        double score = bases[position];
+        for (int i = starts[position], end = starts[position + 1]; i < end; i++) {
+            score += coefficients[i] * weights[indices[i]];
+        }
+        return score;
+    }
+
+    /**
+     * gradient[w] += scale * coefficient of w in position i
+     */
+    public void accumulate(int position, double scale, double[] gradient) {
+        for (int i = starts[position], end = starts[position + 1]; i < end; i++) {
+            gradient[indices[i]] += scale * coefficients[i];
+        }
+    }
+
+    public double getResult(int position) {
+        return results[position] / 2.0;
+    }
+}
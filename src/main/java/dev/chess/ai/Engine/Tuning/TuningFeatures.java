@@ -0,0 +1,147 @@
+package dev.chess.ai.Engine.Tuning;
+
+import dev.chess.ai.Engine.Board.AttackMap;
+import dev.chess.ai.Engine.Evaluation.EvaluationWeights;
+import dev.chess.ai.Engine.Evaluation.impl.KingSaftey.KingSafetyEvaluation;
+import dev.chess.ai.Engine.Evaluation.impl.Position.PawnPassEvaluator;
+import dev.chess.ai.Engine.Evaluation.impl.Position.PieceSquareTables;
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Simulation.Piece;
+import dev.chess.ai.Util.Board.BoardUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Turns a position into the coefficient of every tunable weight, so the hand written evaluation
+ * becomes eval = base + sum(coefficient[i] * weight[i])
+ * <p>
+ * Mirrors how each evaluator combines its weights:
+ * material -> piece count difference, piece-square -> +1 / -1 per occupied square,
+ * pawn structure -> {@link PawnPassEvaluator#collectTerms}, mobility -> {@link AttackMap#getMobility} histograms.
+ * Midgame / endgame weights get the phase taper baked into the coefficient
+ * <p>
+ * King safety goes through a table and isn't linear in its weights -> it's evaluated once and kept as the base
+ * <p>
+ * Holds a board and scratch buffers -> one instance per thread
+ */
+public class TuningFeatures {
+
+    private final int materialOffset;
+    private final int[] pstMidgameOffsets = new int[6];
+    private final int[] pstEndgameOffsets = new int[6];
+    private final int isolatedOffset;
+    private final int backwardOffset;
+    private final int doubledOffset;
+    private final int connectedOffset;
+    private final int passedOffset;
+    private final int[] mobilityMidgameOffsets = new int[6];
+    private final int[] mobilityEndgameOffsets = new int[6];
+    private final int[] mobilityLengths = new int[6];
+
+    private final Board board = new Board();
+    private final KingSafetyEvaluation kingSafety = new KingSafetyEvaluation();
+    private final double[] pawnTerms = new double[PawnPassEvaluator.TERM_COUNT];
+    private final double[] coefficients;
+    private double base;
+
+    /**
+     * @param offsets start of each weight key in the flat weight vector
+     * @param weights current value of each key, only the lengths are used
+     */
+    public TuningFeatures(Map<String, Integer> offsets, Map<String, int[]> weights, int weightCount) {
+        this.coefficients = new double[weightCount];
+
+        this.materialOffset = offsets.getOrDefault("MATERIAL", -1);
+        for (int type = Piece.PAWN; type <= Piece.KING; type++) {
+            String name = EvaluationWeights.PIECE_NAMES[type];
+            pstMidgameOffsets[type] = offsets.getOrDefault("PST_MG_" + name, -1);
+            pstEndgameOffsets[type] = offsets.getOrDefault("PST_EG_" + name, -1);
+            mobilityMidgameOffsets[type] = offsets.getOrDefault("MOBILITY_MG_" + name, -1);
+            mobilityEndgameOffsets[type] = offsets.getOrDefault("MOBILITY_EG_" + name, -1);
+            int[] mobility = weights.get("MOBILITY_MG_" + name);
+            mobilityLengths[type] = mobility == null ? 0 : mobility.length;
+        }
+        this.isolatedOffset = offsets.getOrDefault("PAWN_ISOLATED", -1);
+        this.backwardOffset = offsets.getOrDefault("PAWN_BACKWARD", -1);
+        this.doubledOffset = offsets.getOrDefault("PAWN_DOUBLED", -1);
+        this.connectedOffset = offsets.getOrDefault("PAWN_CONNECTED", -1);
+        this.passedOffset = offsets.getOrDefault("PAWN_PASSED", -1);
+    }
+
+    /**
+     * @return false if the FEN couldn't be read
+     */
+    public boolean extract(String fen) {
+        try {
+            BoardUtils.loadFEN(board, fen);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (board.getKingSquare(true) < 0 || board.getKingSquare(false) < 0) {
+            return false;
+        }
+
+        Arrays.fill(coefficients, 0);
+        double midgame = board.getPhase() / (double) PieceSquareTables.TOTAL_PHASE;
+        double endgame = 1 - midgame;
+
+        for (int type = Piece.PAWN; type <= Piece.KING; type++) {
+            add(materialOffset, type, board.getPieceCount(type) - board.getPieceCount(type + 6));
+
+            for (long bb = board.getBitboard(type); bb != 0; bb &= bb - 1) {
+                int square = Long.numberOfTrailingZeros(bb);
+                add(pstMidgameOffsets[type], square, midgame);
+                add(pstEndgameOffsets[type], square, endgame);
+            }
+            for (long bb = board.getBitboard(type + 6); bb != 0; bb &= bb - 1) {
+                int square = Long.numberOfTrailingZeros(bb) ^ 56; // black reads the white table mirrored
+                add(pstMidgameOffsets[type], square, -midgame);
+                add(pstEndgameOffsets[type], square, -endgame);
+            }
+        }
+
+        PawnPassEvaluator.collectTerms(board.getBitboard(Piece.PAWN), board.getBitboard(Piece.PAWN + 6), pawnTerms);
+        add(isolatedOffset, 0, -pawnTerms[PawnPassEvaluator.TERM_ISOLATED]);
+        add(backwardOffset, 0, -pawnTerms[PawnPassEvaluator.TERM_BACKWARD]);
+        add(doubledOffset, 0, -pawnTerms[PawnPassEvaluator.TERM_DOUBLED]);
+        for (int rank = 0; rank < 8; rank++) {
+            add(connectedOffset, rank, pawnTerms[PawnPassEvaluator.TERM_CONNECTED + rank]);
+            add(passedOffset, rank, pawnTerms[PawnPassEvaluator.TERM_PASSED + rank] * endgame);
+        }
+
+        AttackMap attacks = board.getAttackMap();
+        for (int type = Piece.KNIGHT; type <= Piece.QUEEN; type++) {
+            int[] white = attacks.getMobility(AttackMap.WHITE, type);
+            int[] black = attacks.getMobility(AttackMap.BLACK, type);
+            for (int count = 0; count < mobilityLengths[type]; count++) {
+                int difference = white[count] - black[count];
+                add(mobilityMidgameOffsets[type], count, difference * midgame);
+                add(mobilityEndgameOffsets[type], count, difference * endgame);
+            }
+        }
+
+        base = kingSafety.evaluate(board);
+        return true;
+    }
+
+    private void add(int offset, int index, double value) {
+        if (offset >= 0) {
+            coefficients[offset + index] += value;
+        }
+    }
+
+    /**
+     * Dense coefficients of the last extracted position, indexed like the flat weight vector
+     */
+    public double[] getCoefficients() {
+        return coefficients;
+    }
+
+    /**
+     * Part of the evaluation that isn't tuned (king safety)
+     */
+    public double getBase() {
+        return base;
+    }
+}
@@ -1,11 +1,18 @@
 package dev.chess.ai.Simulation;
 
+import dev.chess.ai.Engine.Board.AttackMap;
+import dev.chess.ai.Engine.Board.StaticExchange;
+import dev.chess.ai.Engine.Evaluation.EvaluationWeights;
+import dev.chess.ai.Engine.Evaluation.impl.Neural.NeuralAccumulator;
+import dev.chess.ai.Engine.Evaluation.impl.Position.PieceSquareTables;
 import dev.chess.ai.Engine.Move.Move;
 import dev.chess.ai.Simulation.Impl.*;
+import dev.chess.ai.Util.Board.MaterialKey;
 import dev.chess.ai.Util.Board.PieceCache;
 import dev.chess.ai.Util.Board.ZobristHasher;
 import dev.chess.ai.Util.Math.PiecePosition;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -21,6 +28,32 @@ public class Board {
 
     private Piece[][] pieces;
     private long zobristHash; /// {@link ZobristHasher}
+    private long pawnHash; // pawns only -> key for the pawn hash table
+
+    // Bitboards next to the grid, bit = row * 8 + col -> see AttackTables
+    private final long[] bitboards = new long[12]; // [Piece#getIndex]
+    private final long[] occupancy = new long[2]; // [0 white, 1 black]
+
+    // Attacks for the current position, rebuilt on the first request after the hash changes
+    // so every evaluator looking at the same node shares one pass over the pieces
+    private final AttackMap attackMap = new AttackMap();
+    private long attackMapHash;
+    private boolean attackMapValid;
+
+    // Evaluation accumulators -> white - black, kept in sync on every piece add/remove
+    // so the material and piece-square evaluators don't need to loop the board
+    private int materialScore;
+    private int pstMidgame;
+    private int pstEndgame;
+    private final int[] pieceCounts = new int[12]; // [Piece#getIndex]
+    private int phase; // sum of PieceSquareTables.PHASE_WEIGHTS
+    private long materialKey; // see MaterialKey
+
+    // Weights the accumulators are summed with -> only swapped by refreshWeights so a search sees one snapshot
+    private EvaluationWeights weights = EvaluationWeights.current();
+
+    // Only set once a NeuralEvaluator has looked at this board
+    private NeuralAccumulator neuralAccumulator;
 
     // King Cache -> moved from MoveGenerator bc I don't want an instance of it here
     private int whiteKingRow = 7, whiteKingCol = 4;
@@ -28,6 +61,36 @@ public class Board {
 
     private PieceCache pieceCache;
 
+    // Position state that isn't visible from piece placement -> all part of the zobrist hash
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    private boolean whiteToMove = true;
+    private int castlingRights = ALL_CASTLING;
+    private int enPassantFile = -1; // -1 -> none
+
+    // castlingRights &= CASTLING_MASK[square] for both squares of a move
+    // anything leaving or landing on a king/rook home square loses the matching right
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[0] &= ~BLACK_QUEENSIDE;  // a8
+        CASTLING_MASK[7] &= ~BLACK_KINGSIDE;   // h8
+        CASTLING_MASK[4] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE); // e8
+        CASTLING_MASK[56] &= ~WHITE_QUEENSIDE; // a1
+        CASTLING_MASK[63] &= ~WHITE_KINGSIDE;  // h1
+        CASTLING_MASK[60] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE); // e1
+    }
+
+    // Castling / en passant before each movePiece(Move) so undoMove can restore them
+    // packed as castlingRights | (enPassantFile + 1) << 4
+    private int[] stateHistory = new int[256];
+    private int stateHistorySize = 0;
+
     public Board() {
         this.pieces = new Piece[8][8];
         this.pieceCache = new PieceCache();
@@ -38,7 +101,10 @@ public class Board {
     private void initialize() {
         this.pieceCache.rebuild(pieces);
         initializeKingPositions();
-        zobristHash = ZobristHasher.computeHash(pieces);
+        initializeBitboards();
+        zobristHash = ZobristHasher.computeHash(this);
+        pawnHash = ZobristHasher.computePawnHash(pieces);
+        initializeEvaluationState();
     }
 
     private void initializeKingPositions() {
@@ -58,6 +124,24 @@ public class Board {
         }
     }
 
+    /**
+     * @return row * 8 + col of the king, no allocation
+     */
+    public int getKingSquare(boolean isWhite) {
+        return isWhite ? whiteKingRow * 8 + whiteKingCol : blackKingRow * 8 + blackKingCol;
+    }
+
+    /**
+     * Bitboard check test -> no move generation, no allocation
+     */
+    public boolean isInCheck(boolean isWhite) {
+        int king = getKingSquare(isWhite);
+        if (king < 0) {
+            return false;
+        }
+        return (StaticExchange.attackersTo(this, king, getOccupancy()) & getOccupancy(!isWhite)) != 0;
+    }
+
     public int[] getKingPosition(boolean isWhite) {
         return isWhite ? new int[]{whiteKingRow, whiteKingCol}
                 : new int[]{blackKingRow, blackKingCol};
@@ -108,16 +192,22 @@ public class Board {
         Piece oldPiece = pieces[row][col];
         // Update our cached positions
         if (oldPiece != null) {
-            zobristHash ^= ZobristHasher.getPieceKey(row, col, oldPiece);
+            liftPiece(row, col, oldPiece);
             pieceCache.remove(row, col, oldPiece.isWhite());
+            // king or rook leaving its home square
+            setCastlingRights(castlingRights & CASTLING_MASK[row * 8 + col]);
         }
         if (piece != null) {
-            zobristHash ^= ZobristHasher.getPieceKey(row, col, piece);
+            placePiece(row, col, piece);
             pieceCache.add(row, col, piece);
         }
 
         pieces[row][col] = piece;
 
+        // keep the king cache right for pieces placed by hand
+        if (piece instanceof King) {
+            setKingPosition(piece.isWhite(), row, col);
+        }
     }
 
     public void movePiece(Move move) {
@@ -131,12 +221,14 @@ public class Board {
 
         if (moving == null) return;
 
-        // Hash
-        zobristHash ^= ZobristHasher.getPieceKey(fromRow, fromCol, moving);
+        pushState();
+
+        // Hash + incremental eval
+        liftPiece(fromRow, fromCol, moving);
         if (captured != null) {
-            zobristHash ^= ZobristHasher.getPieceKey(toRow, toCol, captured);
+            liftPiece(toRow, toCol, captured);
         }
-        zobristHash ^= ZobristHasher.getPieceKey(toRow, toCol, moving);
+        placePiece(toRow, toCol, moving);
 
         if (captured != null) {
             pieceCache.remove(toRow, toCol, captured.isWhite());
@@ -154,7 +246,50 @@ public class Board {
                 blackKingRow = move.getToRow();
                 blackKingCol = move.getToCol();
             }
+
+            // castling -> king moves two files, the rook jumps over it
+            if (Math.abs(toCol - fromCol) == 2) {
+                shiftPiece(fromRow, toCol > fromCol ? 7 : 0, toCol > fromCol ? 5 : 3);
+            }
+        }
+
+        setCastlingRights(castlingRights & CASTLING_MASK[fromRow * 8 + fromCol] & CASTLING_MASK[toRow * 8 + toCol]);
+
+        // Only hash the en passant file if a pawn can actually take -> otherwise equal positions
+        // reached with and without a double push would get different keys
+        int newEnPassantFile = -1;
+        if (moving instanceof Pawn && Math.abs(toRow - fromRow) == 2 && hasAdjacentEnemyPawn(toRow, toCol, moving.isWhite())) {
+            newEnPassantFile = toCol;
+        }
+        setEnPassantFile(newEnPassantFile);
+
+        toggleSideToMove();
+    }
+
+    /**
+     * Moves a piece along a row to an empty square -> the rook half of castling
+     */
+    private void shiftPiece(int row, int fromCol, int toCol) {
+        Piece piece = pieces[row][fromCol];
+        if (piece == null) return;
+
+        liftPiece(row, fromCol, piece);
+        placePiece(row, toCol, piece);
+        pieceCache.update(row, fromCol, row, toCol, piece);
+        pieces[row][toCol] = piece;
+        pieces[row][fromCol] = null;
+    }
+
+    private boolean hasAdjacentEnemyPawn(int row, int col, boolean isWhite) {
+        for (int dc = -1; dc <= 1; dc += 2) {
+            int c = col + dc;
+            if (c < 0 || c >= 8) continue;
+            Piece p = pieces[row][c];
+            if (p instanceof Pawn && p.isWhite() != isWhite) {
+                return true;
+            }
         }
+        return false;
     }
 
     public void undoMove(Move move) {
@@ -168,11 +303,11 @@ public class Board {
 
         if (moving == null) return;
 
-        zobristHash ^= ZobristHasher.getPieceKey(toRow, toCol, moving);
+        liftPiece(toRow, toCol, moving);
         if (captured != null) {
-            zobristHash ^= ZobristHasher.getPieceKey(toRow, toCol, captured);
+            placePiece(toRow, toCol, captured);
         }
-        zobristHash ^= ZobristHasher.getPieceKey(fromRow, fromCol, moving);
+        placePiece(fromRow, fromCol, moving);
 
         pieceCache.update(toRow, toCol, fromRow, fromCol, moving);
         if (captured != null) {
@@ -192,7 +327,15 @@ public class Board {
                 blackKingRow = move.getFromRow();
                 blackKingCol = move.getFromCol();
             }
+
+            // castling -> rook goes back to its corner
+            if (Math.abs(toCol - fromCol) == 2) {
+                shiftPiece(fromRow, toCol > fromCol ? 5 : 3, toCol > fromCol ? 7 : 0);
+            }
         }
+
+        popState();
+        toggleSideToMove();
     }
 
     public boolean movePiece(int fromRow, int fromCol, int toRow, int toCol) {
@@ -209,15 +352,8 @@ public class Board {
             return false;
         }
 
-        Piece captured = pieces[toRow][toCol];
-        if (captured != null) {
-            pieceCache.remove(toRow, toCol, captured.isWhite());
-        }
-        pieceCache.update(fromRow, fromCol, toRow, toCol, piece);
-
-        pieces[toRow][toCol] = piece;
-        pieces[fromRow][fromCol] = null;
-
+        // go through the full make so the hash and state stay in sync
+        movePiece(new Move(fromRow, fromCol, toRow, toCol, pieces[toRow][toCol]));
         return true;
     }
 
@@ -231,6 +367,171 @@ public class Board {
         }
     }
 
+    // XOR a piece in/out of the position keys
+    private void hashPiece(int row, int col, Piece piece) {
+        long key = ZobristHasher.getPieceKey(row, col, piece);
+        zobristHash ^= key;
+        if (piece.getType() == Piece.PAWN) {
+            pawnHash ^= key;
+        }
+    }
+
+    // Keys + bitboards + evaluation accumulators for a piece appearing on a square
+    private void placePiece(int row, int col, Piece piece) {
+        hashPiece(row, col, piece);
+        toggleBitboard(row, col, piece);
+        updateEvaluationState(row, col, piece, 1);
+    }
+
+    // Reverse of placePiece
+    private void liftPiece(int row, int col, Piece piece) {
+        hashPiece(row, col, piece);
+        toggleBitboard(row, col, piece);
+        updateEvaluationState(row, col, piece, -1);
+    }
+
+    private void toggleBitboard(int row, int col, Piece piece) {
+        long bit = 1L << (row * 8 + col);
+        bitboards[piece.getIndex()] ^= bit;
+        occupancy[piece.isWhite() ? 0 : 1] ^= bit;
+    }
+
+    private void initializeBitboards() {
+        Arrays.fill(bitboards, 0);
+        Arrays.fill(occupancy, 0);
+        attackMapValid = false;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                if (pieces[row][col] != null) {
+                    toggleBitboard(row, col, pieces[row][col]);
+                }
+            }
+        }
+    }
+
+    // sign: 1 -> piece added, -1 -> piece removed
+    private void updateEvaluationState(int row, int col, Piece piece, int sign) {
+        int index = piece.getIndex();
+        int square = row * 8 + col;
+        int value = weights.getMaterial(piece.getType());
+        materialScore += sign * (piece.isWhite() ? value : -value);
+        pstMidgame += sign * weights.getPstMidgame()[index][square];
+        pstEndgame += sign * weights.getPstEndgame()[index][square];
+        pieceCounts[index] += sign;
+        materialKey += sign * MaterialKey.unit(index);
+        phase += sign * PieceSquareTables.PHASE_WEIGHTS[piece.getType()];
+        if (neuralAccumulator != null) {
+            neuralAccumulator.update(this, row, col, piece, sign);
+        }
+    }
+
+    /**
+     * Recompute the evaluation accumulators from the grid
+     */
+    private void initializeEvaluationState() {
+        materialScore = 0;
+        pstMidgame = 0;
+        pstEndgame = 0;
+        phase = 0;
+        materialKey = 0;
+        Arrays.fill(pieceCounts, 0);
+        if (neuralAccumulator != null) {
+            neuralAccumulator.invalidate();
+        }
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                if (pieces[row][col] != null) {
+                    updateEvaluationState(row, col, pieces[row][col], 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Switch to the live {@link EvaluationWeights} if they were reloaded since, and re-sum the accumulators.
+     * Call between searches, never inside one
+     *
+     * @return true if the weights changed
+     */
+    public boolean refreshWeights() {
+        EvaluationWeights live = EvaluationWeights.current();
+        if (live == weights) {
+            return false;
+        }
+        weights = live;
+        initializeEvaluationState();
+        return true;
+    }
+
+    public EvaluationWeights getWeights() {
+        return weights;
+    }
+
+    // ========== Side to move / castling / en passant ==========
+
+    private void pushState() {
+        if (stateHistorySize == stateHistory.length) {
+            stateHistory = Arrays.copyOf(stateHistory, stateHistory.length * 2);
+        }
+        stateHistory[stateHistorySize++] = castlingRights | ((enPassantFile + 1) << 4);
+    }
+
+    private void popState() {
+        if (stateHistorySize == 0) {
+            return;
+        }
+        int state = stateHistory[--stateHistorySize];
+        setCastlingRights(state & 15);
+        setEnPassantFile((state >> 4) - 1);
+    }
+
+    private void setCastlingRights(int rights) {
+        if (rights == castlingRights) return;
+        zobristHash ^= ZobristHasher.getCastlingKey(castlingRights);
+        zobristHash ^= ZobristHasher.getCastlingKey(rights);
+        castlingRights = rights;
+    }
+
+    private void setEnPassantFile(int file) {
+        if (file == enPassantFile) return;
+        zobristHash ^= ZobristHasher.getEnPassantKey(enPassantFile);
+        zobristHash ^= ZobristHasher.getEnPassantKey(file);
+        enPassantFile = file;
+    }
+
+    private void toggleSideToMove() {
+        whiteToMove = !whiteToMove;
+        zobristHash ^= ZobristHasher.getSideKey();
+    }
+
+    /**
+     * Sync the side to move for code that edits the board through {@link #setPiece}
+     * instead of {@link #movePiece(Move)}
+     */
+    public void setWhiteToMove(boolean whiteToMove) {
+        if (this.whiteToMove != whiteToMove) {
+            toggleSideToMove();
+        }
+    }
+
+    public boolean isWhiteToMove() {
+        return whiteToMove;
+    }
+
+    /**
+     * @return mask of {@link #WHITE_KINGSIDE}, {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE}, {@link #BLACK_QUEENSIDE}
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return file a pawn can be captured en passant on, or -1
+     */
+    public int getEnPassantFile() {
+        return enPassantFile;
+    }
+
     public boolean isValidPosition(int row, int col) {
         return row >= 0 && row < 8 && col >= 0 && col < 8;
     }
@@ -242,7 +543,14 @@ public class Board {
             }
         }
         this.pieceCache.clear();
-        this.zobristHash = 0;
+        this.whiteToMove = true;
+        this.castlingRights = 0;
+        this.enPassantFile = -1;
+        this.stateHistorySize = 0;
+        this.zobristHash = ZobristHasher.computeHash(this);
+        this.pawnHash = 0;
+        initializeBitboards();
+        initializeEvaluationState();
         this.whiteKingRow = this.whiteKingCol = -1;
         this.blackKingRow = this.blackKingCol = -1;
     }
@@ -250,9 +558,8 @@ public class Board {
     public void reset() {
         clear();
         initializeBoard();
-        this.pieceCache.rebuild(pieces);
-        initializeKingPositions();
-        zobristHash = ZobristHasher.computeHash(pieces);
+        this.castlingRights = ALL_CASTLING;
+        initialize();
     }
 
     public Piece[][] getPieces() {
@@ -274,4 +581,96 @@ public class Board {
     public long getZobristHash() {
         return zobristHash;
     }
+
+    /**
+     * @param pieceIndex {@link Piece#getIndex()}
+     * @return squares (row * 8 + col) holding that piece
+     */
+    public long getBitboard(int pieceIndex) {
+        return bitboards[pieceIndex];
+    }
+
+    public long getOccupancy(boolean isWhite) {
+        return occupancy[isWhite ? 0 : 1];
+    }
+
+    public long getOccupancy() {
+        return occupancy[0] | occupancy[1];
+    }
+
+    /**
+     * Attack sets for the current position. Built once per position and shared by
+     * every evaluator, don't hold on to it across moves
+     */
+    public AttackMap getAttackMap() {
+        if (!attackMapValid || attackMapHash != zobristHash) {
+            attackMap.compute(this);
+            attackMapHash = zobristHash;
+            attackMapValid = true;
+        }
+        return attackMap;
+    }
+
+    /**
+     * @return material balance in centipawns, white - black
+     */
+    public int getMaterialScore() {
+        return materialScore;
+    }
+
+    /**
+     * @return piece-square sum with the midgame tables, white - black
+     */
+    public int getPstMidgame() {
+        return pstMidgame;
+    }
+
+    /**
+     * @return piece-square sum with the endgame tables, white - black
+     */
+    public int getPstEndgame() {
+        return pstEndgame;
+    }
+
+    /**
+     * @return 0 (pawn endgame) to {@link PieceSquareTables#TOTAL_PHASE} (opening).
+     * Capped since promotions can push the raw sum above the max
+     */
+    public int getPhase() {
+        return Math.min(phase, PieceSquareTables.TOTAL_PHASE);
+    }
+
+    /**
+     * @param pieceIndex {@link Piece#getIndex()}
+     */
+    public int getPieceCount(int pieceIndex) {
+        return pieceCounts[pieceIndex];
+    }
+
+    /**
+     * Piece counts of every kind packed into one long -> key for {@link dev.chess.ai.Engine.Evaluation.impl.Endgame.EndgameRegistry}
+     */
+    public long getMaterialKey() {
+        return materialKey;
+    }
+
+    public int getTotalPieceCount() {
+        return pieceCache.getList(true).size() + pieceCache.getList(false).size();
+    }
+
+    public NeuralAccumulator getNeuralAccumulator() {
+        return neuralAccumulator;
+    }
+
+    public void setNeuralAccumulator(NeuralAccumulator neuralAccumulator) {
+        this.neuralAccumulator = neuralAccumulator;
+    }
+
+    /**
+     * Hash of pawn placement only. Pawn structure rarely changes during search
+     * so this makes a great key for caching pawn evaluation
+     */
+    public long getPawnHash() {
+        return pawnHash;
+    }
 }
\ No newline at end of file
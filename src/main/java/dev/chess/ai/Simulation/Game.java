@@ -111,15 +111,6 @@ public class Game {
             return;
         }
 
-        // Check for castling
-        if (piece instanceof King && Math.abs(toCol - fromCol) == 2) {
-            executeCastling(fromRow, fromCol, toRow, toCol, piece.isWhite());
-            moveHistory.add(new Move(fromRow, fromCol, toRow, toCol, null));
-            promotions.add(null);
-            isWhiteTurn = !isWhiteTurn;
-            return;
-        }
-
         // Check for en passant
         Piece captured = board.getPiece(toRow, toCol);
         if (piece instanceof Pawn && toCol != fromCol && captured == null) {
@@ -130,6 +121,7 @@ public class Game {
         }
 
         // Create n execute move
+        // castling is a king move of two files -> the board moves the rook with it
         Move move = new Move(fromRow, fromCol, toRow, toCol, captured);
         board.movePiece(move);
 
@@ -146,31 +138,6 @@ public class Game {
         isWhiteTurn = !isWhiteTurn;
     }
 
-    /**
-     * Execute a castling move
-     */
-    private void executeCastling(int fromRow, int fromCol, int toRow, int toCol, boolean isWhite) {
-        // Move the king
-        Piece king = board.getPiece(fromRow, fromCol);
-        board.setPiece(fromRow, fromCol, null);
-        board.setPiece(toRow, toCol, king);
-
-        // Move the rook
-        if (toCol > fromCol) {
-            // Kingside castling (O-O)
-            // Rook moves from h-file (col 7) -> f-file (col 5)
-            Piece rook = board.getPiece(fromRow, 7);
-            board.setPiece(fromRow, 7, null);
-            board.setPiece(fromRow, 5, rook);
-        } else {
-            // Queenside castling (O-O-O)
-            // Rook moves from a-file (col 0) -> d-file (col 3)
-            Piece rook = board.getPiece(fromRow, 0);
-            board.setPiece(fromRow, 0, null);
-            board.setPiece(fromRow, 3, rook);
-        }
-    }
-
     /**
      * Promote a pawn to the specified piece
      */
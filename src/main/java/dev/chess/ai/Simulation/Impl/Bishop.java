@@ -43,6 +43,11 @@ public class Bishop extends Piece {
         return isValidDestination(board[toRow][toCol]);
     }
 
+    @Override
+    public int getType() {
+        return BISHOP;
+    }
+
     @Override
     public char getSymbol() {
         return isWhite ? 'B' : 'b';
@@ -24,6 +24,11 @@ public class King extends Piece {
         return isValidDestination(board[toRow][toCol]);
     }
 
+    @Override
+    public int getType() {
+        return KING;
+    }
+
     @Override
     public char getSymbol() {
         return isWhite ? 'K' : 'k';
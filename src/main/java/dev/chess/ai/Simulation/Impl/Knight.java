@@ -24,6 +24,11 @@ public class Knight extends Piece {
         return isValidDestination(board[toRow][toCol]);
     }
 
+    @Override
+    public int getType() {
+        return KNIGHT;
+    }
+
     @Override
     public char getSymbol() {
         return isWhite ? 'N' : 'n';
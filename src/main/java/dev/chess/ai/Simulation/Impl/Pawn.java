@@ -39,6 +39,11 @@ public class Pawn extends Piece {
         return false;
     }
 
+    @Override
+    public int getType() {
+        return PAWN;
+    }
+
     @Override
     public char getSymbol() {
         return isWhite ? 'P' : 'p';
@@ -42,6 +42,11 @@ public class Queen extends Piece {
         return isValidDestination(board[toRow][toCol]);
     }
 
+    @Override
+    public int getType() {
+        return QUEEN;
+    }
+
     @Override
     public char getSymbol() {
         return isWhite ? 'Q' : 'q';
@@ -47,6 +47,11 @@ public class Rook extends Piece {
         return isValidDestination(board[toRow][toCol]);
     }
 
+    @Override
+    public int getType() {
+        return ROOK;
+    }
+
     @Override
     public char getSymbol() {
         return isWhite ? 'R' : 'r';
@@ -2,6 +2,14 @@ package dev.chess.ai.Simulation;
 
 public abstract class Piece {
 
+    // Type indices -> used to index hash keys and evaluation tables without switching on symbols
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
     protected final boolean isWhite;
 
     public Piece(boolean isWhite) {
@@ -25,6 +33,18 @@ public abstract class Piece {
      */
     public abstract char getSymbol();
 
+    /**
+     * @return one of {@link #PAWN}, {@link #KNIGHT}, {@link #BISHOP}, {@link #ROOK}, {@link #QUEEN}, {@link #KING}
+     */
+    public abstract int getType();
+
+    /**
+     * @return 0-11, white pieces first (P N B R Q K p n b r q k)
+     */
+    public final int getIndex() {
+        return isWhite ? getType() : getType() + 6;
+    }
+
     /**
      * @return true if piece is white, false if black
      */
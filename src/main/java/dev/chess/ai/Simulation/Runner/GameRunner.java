@@ -21,7 +21,7 @@ public class GameRunner {
     private GameStatus status;
     private Algorithm whiteAlgorithm;
     private Algorithm blackAlgorithm;
-    private final Map<String, Integer> positionCount;
+    private final Map<Long, Integer> positionCount; // zobrist hash -> times seen
     private int movesSinceCaptureOrPawn;
 
     public GameRunner() {
@@ -63,8 +63,8 @@ public class GameRunner {
             positionCount.clear();
         } else {
             movesSinceCaptureOrPawn++;
-            String positionKey = getBoardHash();
-            positionCount.put(positionKey, positionCount.getOrDefault(positionKey, 0) + 1);
+            long positionKey = board.getZobristHash();
+            positionCount.merge(positionKey, 1, Integer::sum);
         }
 
         updateGameStatus();
@@ -143,31 +143,13 @@ public class GameRunner {
     }
 
     private boolean isDrawByRepetition() {
-        String currentPosition = getBoardHash();
-        return positionCount.getOrDefault(currentPosition, 0) >= 3;
+        return positionCount.getOrDefault(board.getZobristHash(), 0) >= 3;
     }
 
     private boolean isDrawByFiftyMoveRule() {
         return movesSinceCaptureOrPawn >= 100;
     }
 
-    private String getBoardHash() {
-        StringBuilder hash = new StringBuilder();
-        Piece[][] pieces = board.getPieces();
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = pieces[row][col];
-                if (piece == null) {
-                    hash.append('.');
-                } else {
-                    hash.append(piece.getSymbol());
-                }
-            }
-        }
-        hash.append(isWhiteTurn ? 'W' : 'B');
-        return hash.toString();
-    }
-
     public void reset() {
         board.reset();
         moveHistory.clear();
@@ -2,6 +2,8 @@ package dev.chess.ai.Simulation.Runner;
 
 import dev.chess.ai.Engine.Move.Move;
 import dev.chess.ai.Engine.Search.Algorithm;
+import dev.chess.ai.Engine.Search.SearchListener;
+import dev.chess.ai.Engine.Search.SearchResult;
 import dev.chess.ai.UI.Viewer.BoardViewer;
 
 public class Simulator {
@@ -13,6 +15,12 @@ public class Simulator {
 
     public interface StatsCallback {
         void onMoveComplete(int moveNumber, boolean isWhite, int nodes, long timeMs);
+
+        /**
+         * Every finished iteration while a side is thinking. Runs on the search thread -> keep it short
+         */
+        default void onSearchProgress(boolean isWhite, SearchResult result) {
+        }
     }
 
     public Simulator(int maxMoves) {
@@ -110,7 +118,21 @@ public class Simulator {
             long memBefore = runtime.totalMemory() - runtime.freeMemory();
             long startTime = System.nanoTime();
 
-            Move move = game.makeEngineMove(current, depth);
+            SearchListener progress = null;
+            if (statsCallback != null) {
+                StatsCallback callback = statsCallback;
+                progress = result -> callback.onSearchProgress(isWhiteTurn, result);
+                current.addListener(progress);
+            }
+
+            Move move;
+            try {
+                move = game.makeEngineMove(current, depth);
+            } finally {
+                if (progress != null) {
+                    current.removeListener(progress);
+                }
+            }
 
             long timeMs = (System.nanoTime() - startTime) / 1_000_000;
             long memAfter = runtime.totalMemory() - runtime.freeMemory();
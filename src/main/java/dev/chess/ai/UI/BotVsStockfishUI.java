@@ -93,6 +93,11 @@ public class BotVsStockfishUI implements SceneMaker, Game.GameUpdateListener {
     private void initializeGame() {
         Algorithm algorithm = algorithmFactory.createAlgorithm("Alpha-Beta", new MasterEvaluator(), moveGenerator);
         this.myEngine = new ChessEngine(algorithm);
+        this.myEngine.addProgressListener(result -> {
+            console.log("info " + result);
+            Platform.runLater(() -> statusLabel.setText("Your Bot is thinking... depth " + result.getDepth()
+                    + " | " + result.getPvString()));
+        });
         this.game = new Game(new Board(), myEngine);
         this.game.addUpdateListener(this);
         this.moveGenerator = new MoveGenerator(game.getBoard());
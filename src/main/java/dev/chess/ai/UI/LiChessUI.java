@@ -6,15 +6,22 @@ import dev.chess.ai.Engine.Move.Move;
 import dev.chess.ai.Engine.Move.MoveGenerator;
 import dev.chess.ai.Engine.Search.Algorithm;
 import dev.chess.ai.Engine.Search.AlgorithmFactory;
+import dev.chess.ai.Engine.Search.SearchResult;
 import dev.chess.ai.Engine.Search.impl.AlphaBetaAlgorithm;
+import dev.chess.ai.Engine.Evaluation.Evaluator;
 import dev.chess.ai.Engine.Evaluation.MasterEvaluator;
+import dev.chess.ai.Engine.Evaluation.impl.Neural.NeuralEvaluator;
+import dev.chess.ai.Engine.Evaluation.impl.Neural.NeuralNetwork;
 import dev.chess.ai.Network.Impl.LiChessClient;
 import dev.chess.ai.Simulation.Board;
 import dev.chess.ai.Simulation.Game;
+import dev.chess.ai.Simulation.Impl.Pawn;
+import dev.chess.ai.Simulation.Piece;
 import dev.chess.ai.UI.Viewer.ConsoleViewer;
 import dev.chess.ai.Util.Board.BoardUtils;
 import dev.chess.ai.Util.Interface.ILiChessEvents;
 import dev.chess.ai.Util.Interface.SceneMaker;
+import dev.chess.ai.Util.PropertyLoader;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -26,7 +33,11 @@ import javafx.stage.Stage;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
 
 public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateListener, LiChessClient.GameStreamCallback {
 
@@ -69,6 +80,23 @@ public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateLis
     private boolean inGame = false;
     private volatile boolean waitingForMoveResponse = false;
     private volatile int moveCountWhenStartedCalculating = -1;
+    private volatile Future<SearchResult> pendingSearch;
+
+    // Pondering -> searching the predicted reply while the opponent thinks
+    private final boolean ponderEnabled;
+    private volatile String lastMoves = "";                // move list of the last game state, UCI
+    private volatile String ponderMoves;                   // move list the ponder search assumes
+    private volatile Future<SearchResult> ponderSearch;    // running on the opponent's time
+    private volatile Future<SearchResult> ponderHitSearch; // predicted right -> our next search
+    private final Object ponderLock = new Object();        // starting a ponder vs the stream moving past it
+
+    // Transposition table snapshot -> saved after each game, loaded when an algorithm is created
+    private static final String DEFAULT_TT_SNAPSHOT_PATH = "cache/tt_snapshot.bin";
+    private final Path ttSnapshotPath;
+
+    // Neural network weights -> used instead of MasterEvaluator if the file exists
+    private static final String DEFAULT_NNUE_PATH = "nnue/network.bin";
+    private NeuralNetwork network;
 
     public LiChessUI(Stage stage) {
         this.stage = stage;
@@ -76,15 +104,24 @@ public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateLis
 
         // Initialize engine and game
         this.algorithmFactory = new AlgorithmFactory();
-        this.engine = new ChessEngine(new AlphaBetaAlgorithm(new MasterEvaluator(), new MoveGenerator(new Board())));
+        loadNetwork();
+        this.engine = new ChessEngine(new AlphaBetaAlgorithm(createEvaluator(), new MoveGenerator(new Board())));
+        this.engine.addProgressListener(result -> console.log("info " + result));
         this.game = new Game(new Board(), engine);
         this.game.addUpdateListener(this); // Listen to game updates
 
+        this.ponderEnabled = !"false".equalsIgnoreCase(PropertyLoader.get("PONDER"));
+
+        String snapshotPath = PropertyLoader.get("TT_SNAPSHOT_PATH");
+        this.ttSnapshotPath = Path.of(snapshotPath != null ? snapshotPath : DEFAULT_TT_SNAPSHOT_PATH);
+
         console.log("============================");
         console.log(" ");
         console.log("         LICHESS BOT        ");
         console.log(" ");
         console.log("============================");
+
+        loadTranspositionSnapshot();
     }
 
     @Override
@@ -189,11 +226,12 @@ public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateLis
             String selectedAlgorithm = algorithmComboBox.getValue();
             Algorithm newAlgorithm = algorithmFactory.createAlgorithm(
                     selectedAlgorithm,
-                    new MasterEvaluator(),
+                    createEvaluator(),
                     new MoveGenerator(game.getBoard())
             );
             engine.setAlgorithm(newAlgorithm);
             console.log("Algorithm changed to: " + selectedAlgorithm);
+            loadTranspositionSnapshot();
         });
 
         HBox algorithmBox = new HBox(10);
@@ -421,6 +459,8 @@ public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateLis
     private void handleQueueButton() {
         if (inGame) {
             // Resign and disconnect
+            cancelSearch();
+            stopPondering();
             if (currentGameId != null) {
                 console.log("Resigning from game " + currentGameId);
                 client.resignGame(currentGameId);
@@ -547,6 +587,10 @@ public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateLis
             displayGame.setVisible(false);
             displayGame.setManaged(false);
         });
+
+        cancelSearch(); // the save queues behind these -> stop them so it runs right away
+        stopPondering();
+        saveTranspositionSnapshot();
     }
 
     @Override
@@ -616,6 +660,19 @@ public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateLis
         // Track the number of moves BEFORE updating
         int moveCountBefore = game.getMoveCount();
 
+        // before updatePondering -> a ponder search starting right now either sees this list or gets checked against it
+        if (state.has("moves")) {
+            lastMoves = state.get("moves").getAsString();
+        }
+
+        // Opponent replied -> the ponder search either becomes our search or gets dropped
+        updatePondering(state);
+
+        // The board is about to change under a running search -> stop it and wait until it lets go
+        if (isPositionChanging(state, moveCountBefore)) {
+            cancelSearch();
+        }
+
         // Extract moves and update local board
         if (state.has("moves")) {
             String movesStr = state.get("moves").getAsString();
@@ -712,6 +769,140 @@ public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateLis
 
     // ========== AI Move Logic ==========
 
+    /**
+     * Game over or a different move list than the one on our board
+     */
+    private boolean isPositionChanging(JsonObject state, int moveCount) {
+        if (state.has("status") && !"started".equals(state.get("status").getAsString())) {
+            return true;
+        }
+        if (state.has("moves")) {
+            String movesStr = state.get("moves").getAsString();
+            int incoming = movesStr.isEmpty() ? 0 : movesStr.split(" ").length;
+            return incoming != moveCount;
+        }
+        return false;
+    }
+
+    /**
+     * Stop the search in progress, throw its move away and block until it has returned.
+     * Frees the CPU right away instead of letting a stale search run to full depth
+     */
+    private void cancelSearch() {
+        Future<SearchResult> search = pendingSearch;
+        if (search == null || search.isDone()) {
+            return;
+        }
+
+        search.cancel(false);
+        try {
+            engine.awaitIdle();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        console.log("Stopped search");
+    }
+
+    // ========== Pondering ==========
+
+    /**
+     * Search the opponent's most likely reply on their time. The search gets its own board
+     * replayed from the move list -> the game's board keeps following the stream
+     *
+     * @param searchedMoves move list our search started from, ourMove isn't in it
+     */
+    private void startPondering(SearchResult result, String searchedMoves, String ourMove) {
+        if (!ponderEnabled || game.isGameOver()) {
+            return;
+        }
+
+        String afterOurMove = searchedMoves.isEmpty() ? ourMove : searchedMoves + " " + ourMove;
+        Game ponderGame = new Game(new Board(), engine);
+        ponderGame.updateFromMoves(afterOurMove.split(" "));
+
+        Move reply = engine.getPonderMove(result, ponderGame.getBoard(), ponderGame.isWhiteTurn());
+        if (reply == null) {
+            return;
+        }
+
+        String expected = afterOurMove + " " + toUCI(ponderGame.getBoard(), reply);
+        ponderGame.updateFromMoves(expected.split(" "));
+        if (ponderGame.isGameOver()) {
+            return;
+        }
+
+        synchronized (ponderLock) {
+            // makeBotMove blocks until the server answers -> the reply (a premove) can already be in
+            String current = lastMoves;
+            if (!current.equals(searchedMoves) && !current.equals(afterOurMove)) {
+                return;
+            }
+            ponderMoves = expected;
+            ponderSearch = engine.ponder(ponderGame.getBoard(), ponderGame.isWhiteTurn());
+        }
+        console.log("Pondering on " + toUCI(null, reply));
+    }
+
+    /**
+     * Called for every game state. The opponent played the predicted move -> ponderhit, the ponder
+     * search finishes at the normal depth and makeAIMove takes its result. Anything else -> stop it,
+     * the transposition table keeps what it found
+     */
+    private void updatePondering(JsonObject state) {
+        synchronized (ponderLock) {
+            Future<SearchResult> ponder = ponderSearch;
+            if (ponder == null) {
+                return;
+            }
+
+            boolean ended = state.has("status") && !"started".equals(state.get("status").getAsString());
+            if (!ended && !state.has("moves")) {
+                return; // nothing new about the position
+            }
+            String incoming = state.has("moves") ? state.get("moves").getAsString() : "";
+
+            if (!ended && incoming.equals(ponderMoves)) {
+                engine.ponderHit(depthSpinner.getValue());
+                ponderHitSearch = ponder;
+                ponderSearch = null;
+                console.log("Ponderhit");
+            } else if (ended || !ponderMoves.startsWith(incoming + " ")) {
+                stopPondering();
+                console.log("Ponder miss");
+            }
+            // otherwise it's the echo of our own move -> keep pondering
+        }
+    }
+
+    /**
+     * Drop the ponder search and wait until the search thread is free
+     */
+    private void stopPondering() {
+        Future<SearchResult> ponder = ponderSearch;
+        ponderSearch = null;
+        ponderHitSearch = null;
+        if (ponder == null || ponder.isDone()) {
+            return;
+        }
+
+        ponder.cancel(false);
+        try {
+            engine.awaitIdle();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Game.moveToUCI looks at the board after the move -> here the move hasn't been played yet
+    private static String toUCI(Board board, Move move) {
+        String uci = move.toUCI();
+        Piece piece = board == null ? null : board.getPiece(move.getFromRow(), move.getFromCol());
+        if (piece instanceof Pawn && (move.getToRow() == 0 || move.getToRow() == 7) && uci.length() == 4) {
+            uci += "q";
+        }
+        return uci;
+    }
+
     private void makeAIMove() {
         // Prevent duplicate move calculations
         if (waitingForMoveResponse) {
@@ -726,6 +917,7 @@ public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateLis
 
         waitingForMoveResponse = true;
         moveCountWhenStartedCalculating = game.getMoveCount();
+        String searchedMoves = lastMoves; // the ponder line continues from here, not from whatever the stream has by then
 
 
         new Thread(() -> {
@@ -740,7 +932,25 @@ public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateLis
                 int searchDepth = depthSpinner.getValue();
                 console.log("Calculating best move (depth " + searchDepth + ")...");
 
-                Move bestMove = game.getAIMove(searchDepth);
+                // async so processGameState can stop it the moment the game ends or the position changes.
+                // After a ponderhit the search is already running on this position
+                Future<SearchResult> search = ponderHitSearch;
+                ponderHitSearch = null;
+                if (search == null) {
+                    search = engine.searchAsync(game.getBoard(), game.isWhiteTurn(), searchDepth);
+                }
+                pendingSearch = search;
+
+                SearchResult result;
+                Move bestMove;
+                try {
+                    result = search.get();
+                    bestMove = result.getBestMove();
+                } catch (CancellationException e) {
+                    console.log("Search cancelled - position changed or game ended");
+                    waitingForMoveResponse = false;
+                    return;
+                }
 
                 if (game.isGameOver()) {
                     console.log("Game ended during calculation, not sending move");
@@ -775,6 +985,7 @@ public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateLis
 
                     if (success) {
                         console.log("Move sent successfully");
+                        startPondering(result, searchedMoves, uci);
                     } else {
                         console.log("Failed to send move");
                         console.log("=== Legal moves available ===");
@@ -815,6 +1026,52 @@ public class LiChessUI implements SceneMaker, ILiChessEvents, Game.GameUpdateLis
     }
 
 
+    // ========== Evaluation ==========
+
+    private void loadNetwork() {
+        String configured = PropertyLoader.get("NNUE_PATH");
+        Path path = Path.of(configured != null ? configured : DEFAULT_NNUE_PATH);
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try {
+            this.network = NeuralNetwork.load(path);
+            console.log("Loaded neural network from " + path + " (" + network.getKernelName() + " kernels)");
+        } catch (IOException e) {
+            console.log("Failed to load neural network, using hand written evaluation: " + e.getMessage());
+        }
+    }
+
+    // every algorithm gets its own evaluator -> evaluators keep per-search caches
+    private Evaluator createEvaluator() {
+        return network != null ? new NeuralEvaluator(network) : new MasterEvaluator();
+    }
+
+    // ========== Transposition Table Snapshot ==========
+
+    private void loadTranspositionSnapshot() {
+        try {
+            int loaded = engine.loadTranspositionTable(ttSnapshotPath);
+            if (loaded > 0) {
+                console.log("Loaded " + loaded + " transposition entries from " + ttSnapshotPath);
+            }
+        } catch (IOException e) {
+            console.log("Failed to load transposition snapshot: " + e.getMessage());
+        }
+    }
+
+    // queued behind the searches on the engine's thread -> the next game's search waits for it, never overlaps it
+    private void saveTranspositionSnapshot() {
+        engine.saveTranspositionTableAsync(ttSnapshotPath).whenComplete((saved, error) -> {
+            if (error != null) {
+                console.log("Failed to save transposition snapshot: " + error.getMessage());
+            } else if (saved > 0) {
+                console.log("Saved " + saved + " transposition entries to " + ttSnapshotPath);
+            }
+        });
+    }
+
     // ========== Game Update Listener ==========
 
     @Override
@@ -62,6 +62,51 @@ public class BoardUtils {
         return fen.toString();
     }
 
+    /**
+     * Set the board up from a FEN string. Only piece placement and side to move are read,
+     * castling rights / en passant are left off (the board has no setter for them)
+     *
+     * @throws IllegalArgumentException if the placement field is malformed
+     */
+    public static void loadFEN(Board board, String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8) {
+            throw new IllegalArgumentException("Bad FEN placement: " + fields[0]);
+        }
+
+        board.clear();
+        for (int row = 0; row < 8; row++) {
+            int col = 0;
+            for (char c : rows[row].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                Piece piece = fromFENChar(c);
+                if (piece == null || col > 7) {
+                    throw new IllegalArgumentException("Bad FEN placement: " + fields[0]);
+                }
+                board.setPiece(row, col++, piece);
+            }
+        }
+
+        board.setWhiteToMove(fields.length < 2 || !fields[1].equals("b"));
+    }
+
+    private static Piece fromFENChar(char c) {
+        boolean isWhite = Character.isUpperCase(c);
+        switch (Character.toLowerCase(c)) {
+            case 'p': return new Pawn(isWhite);
+            case 'n': return new Knight(isWhite);
+            case 'b': return new Bishop(isWhite);
+            case 'r': return new Rook(isWhite);
+            case 'q': return new Queen(isWhite);
+            case 'k': return new King(isWhite);
+            default: return null;
+        }
+    }
+
     /**
      * Convert a Piece to its FEN character
      */
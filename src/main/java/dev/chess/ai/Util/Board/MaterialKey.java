@@ -0,0 +1,62 @@
+package dev.chess.ai.Util.Board;
+
+import dev.chess.ai.Simulation.Piece;
+
+/**
+ * Material signature of a position -> the count of every piece packed 4 bits per {@link Piece#getIndex()}
+ * <p>
+ * Unlike a zobrist style material hash it's exact (no collisions) and still kept incrementally by
+ * {@link dev.chess.ai.Simulation.Board}, one add per piece added / removed.
+ * 15 of a kind fits -> more than enough even with every pawn promoted
+ */
+public final class MaterialKey {
+
+    private static final String PIECE_LETTERS = "PNBRQK"; // [Piece#getType]
+
+    private MaterialKey() {
+
+    }
+
+    /**
+     * @return what one more piece of this index adds to the key
+     */
+    public static long unit(int pieceIndex) {
+        return 1L << (pieceIndex << 2);
+    }
+
+    public static int count(long key, int pieceIndex) {
+        return (int) (key >>> (pieceIndex << 2)) & 0xF;
+    }
+
+    /**
+     * Key from a signature like "KBNvK" -> white pieces before the v, black after
+     *
+     * @throws IllegalArgumentException on an unknown piece letter or a missing v
+     */
+    public static long of(String signature) {
+        int split = signature.indexOf('v');
+        if (split < 0) {
+            throw new IllegalArgumentException("Missing 'v' in material signature " + signature);
+        }
+
+        long key = 0;
+        for (int i = 0; i < signature.length(); i++) {
+            if (i == split) {
+                continue;
+            }
+            int type = PIECE_LETTERS.indexOf(signature.charAt(i));
+            if (type < 0) {
+                throw new IllegalArgumentException("Unknown piece '" + signature.charAt(i) + "' in " + signature);
+            }
+            key += unit(i < split ? type : type + 6);
+        }
+        return key;
+    }
+
+    /**
+     * Same material with the colors swapped -> KBNvK becomes KvKBN
+     */
+    public static long mirror(long key) {
+        return (key >>> 24) | ((key & 0xFFFFFFL) << 24);
+    }
+}
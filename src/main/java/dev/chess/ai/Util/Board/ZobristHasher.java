@@ -1,5 +1,6 @@
 package dev.chess.ai.Util.Board;
 
+import dev.chess.ai.Simulation.Board;
 import dev.chess.ai.Simulation.Piece;
 
 import java.util.Random;
@@ -12,23 +13,44 @@ import java.util.Random;
  * and more space-efficient Hash tables or databases
  * e.g. transposition tables and opening books.
  *
+ * A position is more than piece placement -> side to move, castling rights and the en passant file
+ * all get their own keys so two positions that only differ by those don't collide
+ *
  * https://www.chessprogramming.org/Zobrist_Hashing
  */
 public class ZobristHasher {
 
-    private static final long[][][] PIECE_KEYS = new long[64][12][2]; // [square][pieceType][color]
+    /**
+     * Bump whenever the key layout changes so persisted tables keyed by these hashes
+     * (see {@link dev.chess.ai.Engine.Table.TranspositionTableSnapshot}) are rejected
+     */
+    public static final int VERSION = 2;
+    public static final long SEED = 12345;
+
+    private static final long[][] PIECE_KEYS = new long[64][12]; // [square][Piece#getIndex]
+    private static final long[] CASTLING_KEYS = new long[16]; // one per castling rights mask
+    private static final long[] EN_PASSANT_KEYS = new long[8]; // [file]
+    private static final long SIDE_KEY; // XOR'd in when black is to move
 
     static {
-        Random rand = new Random(12345);
+        Random rand = new Random(SEED);
         for (int sq = 0; sq < 64; sq++) {
             for (int piece = 0; piece < 12; piece++) {
-                for (int color = 0; color < 2; color++) {
-                    PIECE_KEYS[sq][piece][color] = rand.nextLong();
-                }
+                PIECE_KEYS[sq][piece] = rand.nextLong();
             }
         }
+        for (int rights = 0; rights < 16; rights++) {
+            CASTLING_KEYS[rights] = rand.nextLong();
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_KEYS[file] = rand.nextLong();
+        }
+        SIDE_KEY = rand.nextLong();
     }
 
+    /**
+     * Piece placement only
+     */
     public static long computeHash(Piece[][] pieces) {
         long hash = 0;
         for (int row = 0; row < 8; row++) {
@@ -42,23 +64,79 @@ public class ZobristHasher {
         return hash;
     }
 
+    /**
+     * Pawn placement only -> see {@link Board#getPawnHash()}
+     */
+    public static long computePawnHash(Piece[][] pieces) {
+        long hash = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = pieces[row][col];
+                if (piece != null && piece.getType() == Piece.PAWN) {
+                    hash ^= getPieceKey(row, col, piece);
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Full position hash from scratch. {@link Board} keeps this updated incrementally,
+     * this is for initialization and debugging
+     */
+    public static long computeHash(Board board) {
+        long hash = computeHash(board.getPieces());
+        hash ^= getCastlingKey(board.getCastlingRights());
+        hash ^= getEnPassantKey(board.getEnPassantFile());
+        if (!board.isWhiteToMove()) {
+            hash ^= SIDE_KEY;
+        }
+        return hash;
+    }
+
     public static long getPieceKey(int row, int col, Piece piece) {
-        int square = row * 8 + col;
-        int pieceIndex = getPieceIndex(piece);
-        int colorIndex = piece.isWhite() ? 0 : 1;
-        return PIECE_KEYS[square][pieceIndex][colorIndex];
+        return PIECE_KEYS[row * 8 + col][piece.getIndex()];
+    }
+
+    /**
+     * @param pieceIndex {@link Piece#getIndex()}
+     */
+    public static long getPieceKey(int square, int pieceIndex) {
+        return PIECE_KEYS[square][pieceIndex];
+    }
+
+    public static long getCastlingKey(int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    /**
+     * @param file en passant file or -1 for none
+     */
+    public static long getEnPassantKey(int file) {
+        return file < 0 ? 0 : EN_PASSANT_KEYS[file];
+    }
+
+    public static long getSideKey() {
+        return SIDE_KEY;
     }
 
-    private static int getPieceIndex(Piece piece) {
-        char symbol = Character.toLowerCase(piece.getSymbol());
-        switch (symbol) {
-            case 'p': return 0;
-            case 'n': return 1;
-            case 'b': return 2;
-            case 'r': return 3;
-            case 'q': return 4;
-            case 'k': return 5;
-            default: return 0;
+    /**
+     * XOR of every key in the table. Two runs only produce the same hashes for the same
+     * positions if this matches, so it's stored next to {@link #SEED} in snapshot headers
+     */
+    public static long getKeyChecksum() {
+        long checksum = SIDE_KEY;
+        for (int sq = 0; sq < 64; sq++) {
+            for (int piece = 0; piece < 12; piece++) {
+                checksum ^= PIECE_KEYS[sq][piece];
+            }
+        }
+        for (long key : CASTLING_KEYS) {
+            checksum ^= key;
+        }
+        for (long key : EN_PASSANT_KEYS) {
+            checksum ^= key;
         }
+        return checksum;
     }
 }
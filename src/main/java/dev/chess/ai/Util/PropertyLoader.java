@@ -7,6 +7,15 @@ import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.util.Properties;
 
+/**
+ * Injects {@link Value} fields from application.properties (or any other {@link Properties})
+ * <p>
+ * Supported field types:
+ * String
+ * int -> 15
+ * int[] -> 1,2,3
+ * int[][] -> rows separated by ';' -> 1,2;3,4,5  (rows can be empty or of different lengths)
+ */
 public class PropertyLoader {
 
     private static final Properties properties = new Properties();
@@ -21,15 +30,22 @@ public class PropertyLoader {
     }
 
     public static void inject(Object target) {
+        inject(target, properties);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a value can't be converted to its field's type
+     */
+    public static void inject(Object target, Properties source) {
         Field[] fields = target.getClass().getDeclaredFields();
         for (Field field : fields) {
             if (field.isAnnotationPresent(Value.class)) {
                 Value annotation = field.getAnnotation(Value.class);
-                String val = properties.getProperty(annotation.key());
+                String val = source.getProperty(annotation.key());
                 if (val != null) {
                     try {
                         field.setAccessible(true);
-                        field.set(target, val);
+                        field.set(target, parse(val, field.getType(), annotation.key()));
                     } catch (IllegalAccessException e) {
                         throw new RuntimeException(e);
                     }
@@ -38,7 +54,94 @@ public class PropertyLoader {
         }
     }
 
+    /**
+     * Write every {@link Value} field of the target into properties, same format {@link #inject} reads
+     */
+    public static Properties extract(Object target) {
+        Properties out = new Properties();
+        for (Field field : target.getClass().getDeclaredFields()) {
+            if (field.isAnnotationPresent(Value.class)) {
+                try {
+                    field.setAccessible(true);
+                    Object value = field.get(target);
+                    if (value != null) {
+                        out.setProperty(field.getAnnotation(Value.class).key(), format(value));
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        return out;
+    }
+
     public static String get(String key) {
         return properties.getProperty(key);
     }
+
+    private static Object parse(String raw, Class<?> type, String key) {
+        try {
+            if (type == String.class) {
+                return raw;
+            }
+            if (type == int.class || type == Integer.class) {
+                return Integer.parseInt(raw.trim());
+            }
+            if (type == int[].class) {
+                return parseArray(raw);
+            }
+            if (type == int[][].class) {
+                String[] rows = raw.split(";", -1); // -1 -> keep empty rows at the end
+                int[][] values = new int[rows.length][];
+                for (int i = 0; i < rows.length; i++) {
+                    values[i] = parseArray(rows[i]);
+                }
+                return values;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad value for " + key + ": " + e.getMessage(), e);
+        }
+        throw new IllegalArgumentException("Unsupported type for " + key + ": " + type.getSimpleName());
+    }
+
+    private static int[] parseArray(String raw) {
+        if (raw.isBlank()) {
+            return new int[0];
+        }
+        String[] parts = raw.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    private static String format(Object value) {
+        if (value instanceof int[]) {
+            return formatArray((int[]) value);
+        }
+        if (value instanceof int[][]) {
+            StringBuilder builder = new StringBuilder();
+            int[][] rows = (int[][]) value;
+            for (int i = 0; i < rows.length; i++) {
+                if (i > 0) {
+                    builder.append(';');
+                }
+                builder.append(formatArray(rows[i]));
+            }
+            return builder.toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private static String formatArray(int[] values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(values[i]);
+        }
+        return builder.toString();
+    }
 }
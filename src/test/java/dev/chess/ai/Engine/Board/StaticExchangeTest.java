@@ -0,0 +1,164 @@
+package dev.chess.ai.Engine.Board;
+
+import dev.chess.ai.Engine.Evaluation.EvaluationWeights;
+import dev.chess.ai.Engine.Move.Move;
+import dev.chess.ai.Engine.Move.MoveGenerator;
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Simulation.Piece;
+import dev.chess.ai.Simulation.Impl.Pawn;
+import dev.chess.ai.Util.Board.BoardUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Swap list SEE on hand built positions + the threshold version agreeing with it everywhere
+ */
+class StaticExchangeTest {
+
+    private final StaticExchange see = new StaticExchange();
+
+    @Test
+    void undefendedPawnIsWon() {
+        Board board = position("4k3/8/8/4p3/8/8/8/4R1K1 w");
+        assertSee(board, move(board, "e1e5"), value(board, Piece.PAWN));
+    }
+
+    @Test
+    void pawnDefendedByPawnLosesTheRook() {
+        Board board = position("4k3/8/3p4/4p3/8/8/8/4R1K1 w");
+        assertSee(board, move(board, "e1e5"), value(board, Piece.PAWN) - value(board, Piece.ROOK));
+    }
+
+    @Test
+    void rookBehindRookJoinsThroughXray() {
+        Board doubled = position("4r1k1/8/8/4p3/8/8/4R3/4R1K1 w");
+        assertSee(doubled, move(doubled, "e2e5"), value(doubled, Piece.PAWN));
+
+        // same without the rook behind -> the defender wins the exchange
+        Board single = position("4r1k1/8/8/4p3/8/8/4R3/6K1 w");
+        assertSee(single, move(single, "e2e5"), value(single, Piece.PAWN) - value(single, Piece.ROOK));
+    }
+
+    @Test
+    void queenBehindBishopJoinsThroughXray() {
+        Board battery = position("6k1/8/2b5/3n4/8/8/6B1/6KQ w");
+        assertSee(battery, move(battery, "g2d5"), value(battery, Piece.KNIGHT));
+
+        // without the queen the bishop trade costs the difference
+        Board alone = position("6k1/8/2b5/3n4/8/8/6B1/6K1 w");
+        assertSee(alone, move(alone, "g2d5"), value(alone, Piece.KNIGHT) - value(alone, Piece.BISHOP));
+    }
+
+    @Test
+    void enPassantRemovesTheVictimFromTheLine() {
+        // d5 leaves with the capture -> the d1 rook now backs up d6 against the d8 rook
+        Board board = position("3r2k1/8/8/3pP3/8/8/8/3R2K1 w");
+        Move enPassant = new Move(3, 4, 2, 3, new Pawn(false));
+        assertSee(board, enPassant, value(board, Piece.PAWN));
+
+        // c7 recaptures -> pawn for pawn
+        Board defended = position("6k1/2p5/8/3pP3/8/8/8/6K1 w");
+        assertSee(defended, new Move(3, 4, 2, 3, new Pawn(false)), 0);
+    }
+
+    @Test
+    void kingRecapturesOnlyWhenSafe() {
+        // Rxe2 Kxe2 -> rook for a pawn
+        Board kingDefends = position("4r1k1/8/8/8/8/8/4P3/4K3 b");
+        assertSee(kingDefends, move(kingDefends, "e8e2"), value(kingDefends, Piece.PAWN) - value(kingDefends, Piece.ROOK));
+
+        // b5 bishop covers e2 too -> the king can't take back
+        Board covered = position("4r1k1/8/8/1b6/8/8/4P3/4K3 b");
+        assertSee(covered, move(covered, "e8e2"), value(covered, Piece.PAWN));
+    }
+
+    @Test
+    void quietMoveOntoDefendedSquareLosesThePiece() {
+        Board board = position("4k3/8/3p4/8/8/8/8/4R1K1 w");
+        Move move = move(board, "e1e5");
+        assertSee(board, move, -value(board, Piece.ROOK));
+        assertTrue(see.isAtLeast(board, move, -value(board, Piece.ROOK)));
+        assertFalse(see.isAtLeast(board, move, 0));
+    }
+
+    @Test
+    void thresholdEdges() {
+        Board board = position("4k3/8/3p4/4p3/8/8/8/4R1K1 w");
+        Move move = move(board, "e1e5");
+        int result = see.evaluate(board, move);
+
+        assertTrue(see.isAtLeast(board, move, result));
+        assertFalse(see.isAtLeast(board, move, result + 1));
+        assertTrue(see.isAtLeast(board, move, result - 1));
+
+        // free pawn -> exactly its value, not a centipawn more
+        Board free = position("4k3/8/8/4p3/8/8/8/4R1K1 w");
+        Move take = move(free, "e1e5");
+        assertTrue(see.isAtLeast(free, take, value(free, Piece.PAWN)));
+        assertFalse(see.isAtLeast(free, take, value(free, Piece.PAWN) + 1));
+    }
+
+    @Test
+    void thresholdAgreesWithSwapListOnRandomPositions() {
+        MoveGenerator generator = new MoveGenerator();
+        Random random = new Random(11);
+        int[] offsets = {-1, 0, 1};
+
+        for (int game = 0; game < 30; game++) {
+            Board board = new Board();
+            boolean white = true;
+
+            for (int ply = 0; ply < 80; ply++) {
+                List<Move> moves = generator.generateAllMoves(board, white);
+                if (moves.isEmpty()) {
+                    break;
+                }
+
+                for (Move move : moves) {
+                    int result = see.evaluate(board, move);
+                    for (int offset : offsets) {
+                        int threshold = result + offset;
+                        assertEquals(result >= threshold, see.isAtLeast(board, move, threshold),
+                                move.toUCI() + " threshold " + threshold + " see " + result);
+                    }
+                    for (int threshold = -1000; threshold <= 1000; threshold += 50) {
+                        assertEquals(result >= threshold, see.isAtLeast(board, move, threshold),
+                                move.toUCI() + " threshold " + threshold + " see " + result);
+                    }
+                }
+
+                board.movePiece(moves.get(random.nextInt(moves.size())));
+                white = !white;
+            }
+        }
+    }
+
+    private void assertSee(Board board, Move move, int expected) {
+        assertEquals(expected, see.evaluate(board, move), move.toUCI());
+        assertTrue(see.isAtLeast(board, move, expected), move.toUCI() + " at least " + expected);
+        assertFalse(see.isAtLeast(board, move, expected + 1), move.toUCI() + " at least " + (expected + 1));
+    }
+
+    private static Board position(String fen) {
+        Board board = new Board();
+        BoardUtils.loadFEN(board, fen);
+        return board;
+    }
+
+    private static int value(Board board, int type) {
+        EvaluationWeights weights = board.getWeights();
+        return weights.getMaterial(type);
+    }
+
+    // UCI squares -> row 0 is rank 8
+    private static Move move(Board board, String uci) {
+        int fromRow = 8 - (uci.charAt(1) - '0');
+        int toRow = 8 - (uci.charAt(3) - '0');
+        int toCol = uci.charAt(2) - 'a';
+        return new Move(fromRow, uci.charAt(0) - 'a', toRow, toCol, board.getPiece(toRow, toCol));
+    }
+}
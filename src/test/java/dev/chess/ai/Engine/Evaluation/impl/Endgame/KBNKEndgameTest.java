@@ -0,0 +1,56 @@
+package dev.chess.ai.Engine.Evaluation.impl.Endgame;
+
+import dev.chess.ai.Engine.Evaluation.Evaluator;
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Util.Board.BoardUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The lone king has to be driven to a corner the bishop covers
+ */
+class KBNKEndgameTest {
+
+    @Test
+    void darkBishopPrefersDarkCorners() {
+        // c1 bishop -> a1 / h8
+        assertTrue(white("k7/8/8/3K4/8/8/8/2BN4 w") < white("8/8/8/3K4/8/8/8/k1BN4 w"), "a1 over a8");
+        assertTrue(white("8/8/8/4K3/8/8/8/2BN3k w") < white("7k/8/8/4K3/8/8/8/2BN4 w"), "h8 over h1");
+    }
+
+    @Test
+    void lightBishopPrefersLightCorners() {
+        // f1 bishop -> a8 / h1
+        assertTrue(white("8/8/8/3K4/8/8/8/k2N1B2 w") < white("k7/8/8/3K4/8/8/8/3N1B2 w"), "a8 over a1");
+        assertTrue(white("7k/8/8/4K3/8/8/8/3N1B2 w") < white("8/8/8/4K3/8/8/8/3N1B1k w"), "h1 over h8");
+    }
+
+    @Test
+    void blackBishopAndKnightMirror() {
+        // black dark bishop on f8 -> a1 / h8 again, scores are black positive so lower is better for black
+        double rightCorner = score("3n1b2/8/8/8/3k4/8/8/K7 b");
+        double wrongCorner = score("3n1b2/8/8/8/3k4/8/8/7K b");
+        assertTrue(rightCorner < -EndgameFunction.KNOWN_WIN);
+        assertTrue(rightCorner < wrongCorner, "a1 over h1");
+    }
+
+    @Test
+    void edgeBeatsCenterForTheRightCorner() {
+        assertTrue(white("8/8/8/3k4/8/2K5/8/2BN4 w") < white("8/8/8/8/8/2K5/8/k1BN4 w"));
+    }
+
+    private static double white(String fen) {
+        double score = score(fen);
+        assertTrue(score > EndgameFunction.KNOWN_WIN, fen);
+        return score;
+    }
+
+    private static double score(String fen) {
+        Board board = new Board();
+        BoardUtils.loadFEN(board, fen);
+        Evaluator kbnk = EndgameRegistry.probe(board.getMaterialKey());
+        assertNotNull(kbnk, fen);
+        return kbnk.evaluate(board);
+    }
+}
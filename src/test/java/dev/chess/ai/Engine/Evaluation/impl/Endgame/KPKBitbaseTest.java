@@ -0,0 +1,89 @@
+package dev.chess.ai.Engine.Evaluation.impl.Endgame;
+
+import dev.chess.ai.Engine.Evaluation.Evaluator;
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Util.Board.BoardUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Textbook KPK positions against the generated bitbase, plus the normalization in {@link KPKEndgame}
+ */
+class KPKBitbaseTest {
+
+    @Test
+    void rookPawnWithKingInTheCornerIsDrawn() {
+        assertFalse(KPKBitbase.isWin(true, square("b6"), square("a6"), square("a8")));
+        assertFalse(KPKBitbase.isWin(false, square("b6"), square("a6"), square("a8")));
+        assertFalse(KPKBitbase.isWin(true, square("b1"), square("a2"), square("a8")));
+    }
+
+    @Test
+    void rookPawnOutsideTheSquareWins() {
+        assertTrue(KPKBitbase.isWin(true, square("b6"), square("a5"), square("h1")));
+        assertTrue(KPKBitbase.isWin(false, square("b6"), square("a5"), square("h1")));
+    }
+
+    @Test
+    void oppositionDecidesWithKingOnTheFifth() {
+        // side not to move has the opposition
+        assertTrue(KPKBitbase.isWin(false, square("d5"), square("d4"), square("d7")));
+        assertFalse(KPKBitbase.isWin(true, square("d5"), square("d4"), square("d7")));
+    }
+
+    @Test
+    void kingOnTheSixthInFrontOfThePawnWinsEitherWay() {
+        assertTrue(KPKBitbase.isWin(true, square("d6"), square("d5"), square("d8")));
+        assertTrue(KPKBitbase.isWin(false, square("d6"), square("d5"), square("d8")));
+    }
+
+    @Test
+    void kingOnAKeySquareWins() {
+        // d4 pawn -> c6, d6, e6 are the key squares
+        for (String key : new String[]{"c6", "d6", "e6"}) {
+            assertTrue(KPKBitbase.isWin(true, square(key), square("d4"), square("g8")), key);
+            assertTrue(KPKBitbase.isWin(false, square(key), square("d4"), square("g8")), key);
+        }
+    }
+
+    @Test
+    void ruleOfTheSquareDependsOnSideToMove() {
+        // f4 steps into the b5 pawn's square only if it's black's move
+        assertTrue(KPKBitbase.isWin(true, square("h1"), square("b5"), square("f4")));
+        assertFalse(KPKBitbase.isWin(false, square("h1"), square("b5"), square("f4")));
+    }
+
+    @Test
+    void undefendedPawnNextToTheKingIsLost() {
+        assertFalse(KPKBitbase.isWin(false, square("h1"), square("c4"), square("d5")));
+    }
+
+    @Test
+    void endgameNormalizesColorAndFile() {
+        // opposition position on the e file with black as the strong side, white to move -> black wins
+        Board blackWins = position("8/8/8/4p3/4k3/8/4K3/8 w");
+        Evaluator kpk = EndgameRegistry.probe(blackWins.getMaterialKey());
+        assertNotNull(kpk);
+        assertTrue(kpk.evaluate(blackWins) < -EndgameFunction.KNOWN_WIN);
+
+        // same with black to move -> white holds
+        Board drawn = position("8/8/8/4p3/4k3/8/4K3/8 b");
+        assertEquals(0, kpk.evaluate(drawn));
+
+        // rook pawn on the h file, white strong -> corner draw
+        Board rookPawn = position("7k/8/6KP/8/8/8/8/8 w");
+        assertEquals(0, EndgameRegistry.probe(rookPawn.getMaterialKey()).evaluate(rookPawn));
+    }
+
+    // row 0 is rank 8
+    private static int square(String name) {
+        return (8 - (name.charAt(1) - '0')) * 8 + (name.charAt(0) - 'a');
+    }
+
+    private static Board position(String fen) {
+        Board board = new Board();
+        BoardUtils.loadFEN(board, fen);
+        return board;
+    }
+}
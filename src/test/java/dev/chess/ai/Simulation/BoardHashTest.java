@@ -0,0 +1,172 @@
+package dev.chess.ai.Simulation;
+
+import dev.chess.ai.Engine.Move.Move;
+import dev.chess.ai.Engine.Move.MoveGenerator;
+import dev.chess.ai.Simulation.Impl.King;
+import dev.chess.ai.Simulation.Impl.Queen;
+import dev.chess.ai.Simulation.Impl.Rook;
+import dev.chess.ai.Util.Board.ZobristHasher;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Incremental zobrist / pawn hash against a from scratch recompute after every make and unmake
+ */
+class BoardHashTest {
+
+    @Test
+    void startPositionMatchesRecompute() {
+        assertHashes(new Board(), "start");
+    }
+
+    @Test
+    void doublePushOnlyHashesCapturableEnPassant() {
+        Board board = new Board();
+        long start = board.getZobristHash();
+
+        // nothing next to e4 -> no en passant file
+        make(board, "e2e4");
+        assertEquals(-1, board.getEnPassantFile());
+        assertHashes(board, "e2e4");
+
+        make(board, "a7a6");
+        make(board, "e4e5");
+
+        // d5 lands next to the e5 pawn -> d file is capturable
+        long beforePush = board.getZobristHash();
+        Move push = make(board, "d7d5");
+        assertEquals(3, board.getEnPassantFile());
+        assertHashes(board, "d7d5");
+
+        board.undoMove(push);
+        assertEquals(-1, board.getEnPassantFile());
+        assertEquals(beforePush, board.getZobristHash());
+        assertHashes(board, "undo d7d5");
+
+        // same position through single pushes -> same key, the double pushes left no en passant behind
+        Board doublePushes = replay("e2e4 a7a5").getBoard();
+        Board singlePushes = replay("e2e3 a7a6 e3e4 a6a5").getBoard();
+        assertEquals(singlePushes.getZobristHash(), doublePushes.getZobristHash(), "transposed");
+        assertNotEquals(start, doublePushes.getZobristHash());
+    }
+
+    @Test
+    void enPassantCaptureMatchesRecompute() {
+        Game game = replay("e2e4 a7a6 e4e5 d7d5 e5d6");
+        Board board = game.getBoard();
+
+        assertNull(board.getPiece(3, 3), "captured pawn left d5");
+        assertEquals(-1, board.getEnPassantFile());
+        assertHashes(board, "e5d6 e.p.");
+    }
+
+    @Test
+    void castlingClearsEnPassantAndTransposes() {
+        // c4 sets the c file (b4 pawn next to it), castling has to clear it again
+        Game pushLast = replay("g2g3 b7b5 g1f3 b5b4 f1g2 g7g6 d2d3 f8g7 e2e3 g8f6 c2c4 e8g8");
+        Game pushFirst = replay("g2g3 b7b5 g1f3 b5b4 c2c4 g7g6 f1g2 f8g7 d2d3 g8f6 e2e3 e8g8");
+
+        Board board = pushLast.getBoard();
+        assertTrue(board.getPiece(0, 6) instanceof King, "king on g8");
+        assertTrue(board.getPiece(0, 5) instanceof Rook, "rook on f8");
+        assertNull(board.getPiece(0, 7), "h8 empty");
+        assertEquals(-1, board.getEnPassantFile());
+        assertEquals(0, board.getCastlingRights() & (Board.BLACK_KINGSIDE | Board.BLACK_QUEENSIDE));
+        assertHashes(board, "after O-O");
+
+        assertEquals(pushFirst.getBoard().getZobristHash(), board.getZobristHash(), "same position, different order");
+    }
+
+    @Test
+    void castlingMakeUnmakeRestoresRookAndRights() {
+        Board board = replay("g1f3 g8f6 g2g3 g7g6 f1g2 f8g7").getBoard();
+        long before = board.getZobristHash();
+        int rights = board.getCastlingRights();
+
+        Move castle = make(board, "e1g1");
+        assertTrue(board.getPiece(7, 5) instanceof Rook, "rook on f1");
+        assertEquals(0, board.getCastlingRights() & (Board.WHITE_KINGSIDE | Board.WHITE_QUEENSIDE));
+        assertHashes(board, "O-O");
+
+        board.undoMove(castle);
+        assertTrue(board.getPiece(7, 7) instanceof Rook, "rook back on h1");
+        assertTrue(board.getPiece(7, 4) instanceof King, "king back on e1");
+        assertNull(board.getPiece(7, 5));
+        assertEquals(rights, board.getCastlingRights());
+        assertEquals(before, board.getZobristHash());
+        assertEquals(7 * 8 + 4, board.getKingSquare(true));
+        assertHashes(board, "undo O-O");
+    }
+
+    @Test
+    void promotionMatchesRecompute() {
+        Game game = replay("a2a4 b7b5 a4b5 a7a6 b5a6 c8b7 a6b7 b8c6 b7a8q");
+        Board board = game.getBoard();
+
+        assertTrue(board.getPiece(0, 0) instanceof Queen, "queen on a8");
+        assertHashes(board, "b7a8q");
+    }
+
+    @Test
+    void randomPlayoutMakeUnmake() {
+        MoveGenerator generator = new MoveGenerator();
+        Random random = new Random(7);
+
+        for (int game = 0; game < 20; game++) {
+            Board board = new Board();
+            Deque<Move> played = new ArrayDeque<>();
+            Deque<Long> hashes = new ArrayDeque<>();
+            boolean white = true;
+
+            for (int ply = 0; ply < 120; ply++) {
+                List<Move> moves = generator.generateAllMoves(board, white);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                Move move = moves.get(random.nextInt(moves.size()));
+
+                hashes.push(board.getZobristHash());
+                board.movePiece(move);
+                played.push(move);
+                white = !white;
+                assertHashes(board, "game " + game + " make " + move.toUCI());
+            }
+
+            while (!played.isEmpty()) {
+                Move move = played.pop();
+                long expected = hashes.pop();
+                board.undoMove(move);
+                assertEquals(expected, board.getZobristHash(), "game " + game + " unmake " + move.toUCI());
+                assertHashes(board, "game " + game + " unmake " + move.toUCI());
+            }
+        }
+    }
+
+    private static void assertHashes(Board board, String where) {
+        assertEquals(ZobristHasher.computeHash(board), board.getZobristHash(), where + ": zobrist");
+        assertEquals(ZobristHasher.computePawnHash(board.getPieces()), board.getPawnHash(), where + ": pawn hash");
+    }
+
+    private static Game replay(String moves) {
+        Game game = new Game(new Board(), null);
+        game.updateFromMoves(moves.split(" "));
+        return game;
+    }
+
+    // UCI squares -> row 0 is rank 8
+    private static Move make(Board board, String uci) {
+        int fromCol = uci.charAt(0) - 'a';
+        int fromRow = 8 - (uci.charAt(1) - '0');
+        int toCol = uci.charAt(2) - 'a';
+        int toRow = 8 - (uci.charAt(3) - '0');
+        Move move = new Move(fromRow, fromCol, toRow, toCol, board.getPiece(toRow, toCol));
+        board.movePiece(move);
+        return move;
+    }
+}
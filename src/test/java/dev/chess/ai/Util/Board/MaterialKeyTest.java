@@ -0,0 +1,56 @@
+package dev.chess.ai.Util.Board;
+
+import dev.chess.ai.Simulation.Board;
+import dev.chess.ai.Simulation.Piece;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MaterialKeyTest {
+
+    @Test
+    void signatureCountsEveryPiece() {
+        long key = MaterialKey.of("KBNvKP");
+        assertEquals(1, MaterialKey.count(key, Piece.KING));
+        assertEquals(1, MaterialKey.count(key, Piece.BISHOP));
+        assertEquals(1, MaterialKey.count(key, Piece.KNIGHT));
+        assertEquals(0, MaterialKey.count(key, Piece.PAWN));
+        assertEquals(1, MaterialKey.count(key, Piece.KING + 6));
+        assertEquals(1, MaterialKey.count(key, Piece.PAWN + 6));
+    }
+
+    @Test
+    void mirrorSwapsColors() {
+        assertEquals(MaterialKey.of("KvKBN"), MaterialKey.mirror(MaterialKey.of("KBNvK")));
+        assertEquals(MaterialKey.of("KPPvKQR"), MaterialKey.mirror(MaterialKey.of("KQRvKPP")));
+
+        long key = MaterialKey.of("KQQRRBBNNPPPPPPPPvKRP");
+        assertEquals(key, MaterialKey.mirror(MaterialKey.mirror(key)));
+    }
+
+    @Test
+    void mirrorKeepsFullCounts() {
+        // 15 of a kind is the most a nibble holds -> nothing may spill into the other color
+        long key = 15 * MaterialKey.unit(Piece.QUEEN) + 15 * MaterialKey.unit(Piece.PAWN + 6);
+        long mirrored = MaterialKey.mirror(key);
+        assertEquals(15, MaterialKey.count(mirrored, Piece.QUEEN + 6));
+        assertEquals(15, MaterialKey.count(mirrored, Piece.PAWN));
+        assertEquals(0, MaterialKey.count(mirrored, Piece.QUEEN));
+    }
+
+    @Test
+    void boardKeepsTheKeyIncrementally() {
+        Board board = new Board();
+        assertEquals(MaterialKey.of("KQRRBBNNPPPPPPPPvKQRRBBNNPPPPPPPP"), board.getMaterialKey());
+        assertEquals(board.getMaterialKey(), MaterialKey.mirror(board.getMaterialKey()));
+
+        BoardUtils.loadFEN(board, "8/8/8/8/8/8/4P3/4K2k w");
+        assertEquals(MaterialKey.of("KPvK"), board.getMaterialKey());
+    }
+
+    @Test
+    void unknownLetterIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MaterialKey.of("KXvK"));
+        assertThrows(IllegalArgumentException.class, () -> MaterialKey.of("KBN"));
+    }
+}